@@ -0,0 +1,20 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 在 IDE 中直接运行全部基准测试，同时输出吞吐量和 gc profiler 统计的分配速率（gc.alloc.rate.norm 为每次操作分配的字节数）
+ * 命令行等价于 java -jar target/benchmarks.jar -prof gc
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "benchmarks\\..*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
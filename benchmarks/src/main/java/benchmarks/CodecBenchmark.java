@@ -0,0 +1,76 @@
+package benchmarks;
+
+import codec.CompactHeartbeat;
+import codec.HeartbeatFrameDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import server.codec.MessageBaseDecoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入站解码：netty 自带的 ProtobufVarint32FrameDecoder + ProtobufDecoder 与服务端的 HeartbeatFrameDecoder + MessageBaseDecoder 对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"PING", "UPLOAD_DATA"})
+    public CommandType cmd;
+
+    private ByteBuf frame;
+    private EmbeddedChannel protobufDecoder;
+    private EmbeddedChannel messageBaseDecoder;
+
+    @Setup
+    public void setup() {
+        frame = ServerPipelines.frame(MessageBase.newBuilder()
+                .setClientId("123456789")
+                .setCmd(cmd)
+                .setData("This is upload data")
+                .build());
+        protobufDecoder = new EmbeddedChannel(
+                new ProtobufVarint32FrameDecoder(),
+                new ProtobufDecoder(MessageBase.getDefaultInstance()));
+        messageBaseDecoder = new EmbeddedChannel(
+                new HeartbeatFrameDecoder(CompactHeartbeat.PING),
+                new MessageBaseDecoder());
+    }
+
+    @TearDown
+    public void tearDown() {
+        protobufDecoder.finish();
+        messageBaseDecoder.finish();
+    }
+
+    @Benchmark
+    public Object protobufDecoder() {
+        protobufDecoder.writeInbound(frame.duplicate());
+        return protobufDecoder.readInbound();
+    }
+
+    @Benchmark
+    public Object messageBaseDecoder() {
+        messageBaseDecoder.writeInbound(frame.duplicate());
+        return messageBaseDecoder.readInbound();
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import io.netty.buffer.Unpooled;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import codec.Features;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证之后的 PING -> PONG 往返：解码、会话 handler 写出预编码的 pong 帧
+ * PLAIN 为普通 ping，TIMED 为带时间戳的 ping（需要回显），COMPACT 为单字节紧凑心跳
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PingPongBenchmark {
+    public enum Ping {
+        PLAIN, TIMED, COMPACT
+    }
+
+    @Param({"PLAIN", "TIMED", "COMPACT"})
+    public Ping ping;
+
+    private EmbeddedChannel channel;
+    private ByteBuf frame;
+
+    @Setup
+    public void setup() {
+        channel = ServerPipelines.newServerChannel(false);
+        ServerPipelines.authenticate(channel, MessageBase.newBuilder()
+                .setClientId("123456789")
+                .setCmd(CommandType.AUTH)
+                .setData("This is auth data")
+                .setFeatures(Features.COMPACT_HEARTBEAT)
+                .build());
+        MessageBase.Builder msg = MessageBase.newBuilder()
+                .setClientId("123456789")
+                .setCmd(CommandType.PING)
+                .setData("This is a ping msg");
+        switch (ping) {
+            case TIMED:
+                frame = ServerPipelines.frame(msg.setTimestamp(System.nanoTime() / 1000).setRttMicros(500).build());
+                break;
+            case COMPACT:
+                // 长度为 0 的帧
+                frame = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(new byte[]{0}));
+                break;
+            default:
+                frame = ServerPipelines.frame(msg.build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public int pingPong() {
+        channel.writeInbound(frame.duplicate());
+        return ServerPipelines.drainOutbound(channel);
+    }
+}
@@ -0,0 +1,119 @@
+package benchmarks;
+
+import codec.CompactHeartbeat;
+import codec.DeflateFrameCompression;
+import codec.HeartbeatFrameDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import io.netty.util.ReferenceCountUtil;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import server.ChannelRepository;
+import server.ReliablePush;
+import server.codec.MessageBaseDecoder;
+import server.codec.ProtobufFrames;
+import server.handler.AuthServerHandler;
+import server.handler.LogicServerHandler;
+import server.handler.OutboundPolicy;
+import server.handler.OutboundQueueHandler;
+import server.handler.SessionServerHandler;
+import server.liveness.HeartbeatIntervalPolicy;
+import server.liveness.LivenessEngine;
+import server.liveness.MissedHeartbeatPolicy;
+import server.metrics.HeartbeatMetrics;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+
+/**
+ * 在 EmbeddedChannel 上按 ServerChannelInitializer 的顺序搭建服务端 pipeline
+ * 不启动 Spring，handler 的依赖通过反射注入
+ */
+final class ServerPipelines {
+    private ServerPipelines() {
+    }
+
+    static EmbeddedChannel newServerChannel(boolean withLogic) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelRepository channelRepository = new ChannelRepository();
+        ReliablePush reliablePush = new ReliablePush(256, 300);
+        // 不启动探测任务，间隔固定为 base
+        HeartbeatIntervalPolicy heartbeatIntervalPolicy = new HeartbeatIntervalPolicy(
+                channel.eventLoop(), channelRepository, 10, 5, 20, 10000, 50, 60, 1000);
+
+        SessionServerHandler sessionServerHandler = new SessionServerHandler();
+        inject(sessionServerHandler, "heartbeatMetrics", new HeartbeatMetrics(60_000_000L));
+        inject(sessionServerHandler, "heartbeatIntervalPolicy", heartbeatIntervalPolicy);
+        // 没有 IdleServerHandler，连接不会注册到时间轮，心跳上报为空操作
+        LivenessEngine livenessEngine = new LivenessEngine(20, 20, 5, 64,
+                () -> new MissedHeartbeatPolicy(20_000_000_000L, 3));
+        inject(sessionServerHandler, "livenessEngine", livenessEngine);
+        inject(sessionServerHandler, "channelRepository", channelRepository);
+        inject(sessionServerHandler, "reliablePush", reliablePush);
+
+        AuthServerHandler authServerHandler = new AuthServerHandler();
+        inject(authServerHandler, "compressionEnabled", false);
+        inject(authServerHandler, "frameCompression", new DeflateFrameCompression(new byte[0], 256, 6));
+        inject(authServerHandler, "channelRepository", channelRepository);
+        inject(authServerHandler, "heartbeatIntervalPolicy", heartbeatIntervalPolicy);
+        inject(authServerHandler, "livenessEngine", livenessEngine);
+        inject(authServerHandler, "sessionServerHandler", sessionServerHandler);
+        inject(authServerHandler, "reliablePush", reliablePush);
+
+        ChannelPipeline p = channel.pipeline();
+        // 无参构造的 EmbeddedChannel 已经装好了收集入站消息的 handler，其余 handler 依次插到它前面
+        String last = p.firstContext().name();
+        p.addBefore(last, "frameDecoder", new HeartbeatFrameDecoder(CompactHeartbeat.PING));
+        p.addBefore(last, "protobufDecoder", new MessageBaseDecoder());
+        p.addBefore(last, ProtobufFrames.FRAME_ENCODER, new ProtobufVarint32LengthFieldPrepender());
+        p.addBefore(last, "protobufEncoder", new ProtobufEncoder());
+        p.addBefore(last, OutboundQueueHandler.NAME,
+                new OutboundQueueHandler(1024, Collections.<CommandType, OutboundPolicy>emptyMap()));
+        p.addBefore(last, "authServerHandler", authServerHandler);
+        if (withLogic) {
+            LogicServerHandler logicServerHandler = new LogicServerHandler();
+            inject(logicServerHandler, "channelRepository", channelRepository);
+            inject(logicServerHandler, "reliablePush", reliablePush);
+            p.addBefore(last, "logicServerHandler", logicServerHandler);
+        }
+        return channel;
+    }
+
+    /**
+     * 发送 AUTH 完成认证，之后 authServerHandler 被替换为 sessionServerHandler
+     */
+    static void authenticate(EmbeddedChannel channel, MessageBase auth) {
+        channel.writeInbound(frame(auth));
+        drainOutbound(channel);
+    }
+
+    static ByteBuf frame(MessageBase msg) {
+        return ProtobufFrames.encodeShared(msg);
+    }
+
+    /**
+     * 读出并释放所有出站消息，返回条数
+     */
+    static int drainOutbound(EmbeddedChannel channel) {
+        int count = 0;
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(msg);
+            count++;
+        }
+        return count;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + name + " into " + target.getClass().getName(), e);
+        }
+    }
+}
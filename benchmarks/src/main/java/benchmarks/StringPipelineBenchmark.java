@@ -0,0 +1,60 @@
+package benchmarks;
+
+import heartbeat.LogicServerHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.Delimiters;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * heartbeat.NettyServerInitializer 的按行字符串 pipeline，ping -> pong，作为 protobuf 心跳的对照
+ * 不包含 IdleStateHandler，与 PingPongBenchmark 一样只测量收发路径
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringPipelineBenchmark {
+    private EmbeddedChannel channel;
+    private ByteBuf frame;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel(
+                new DelimiterBasedFrameDecoder(8192, Delimiters.lineDelimiter()),
+                new StringDecoder(),
+                new StringEncoder(),
+                new LogicServerHandler());
+        frame = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer("ping\n", CharsetUtil.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public int pingPong() {
+        channel.writeInbound(frame.duplicate());
+        return ServerPipelines.drainOutbound(channel);
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传路径：解码、会话 handler、LogicServerHandler 处理并写出确认和推送
+ * batchSize 为 1 时发送 UPLOAD_DATA，大于 1 时发送包含 batchSize 个条目的 UPLOAD_BATCH
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UploadBenchmark {
+    @Param({"1", "16"})
+    public int batchSize;
+
+    private EmbeddedChannel channel;
+    private ByteBuf frame;
+
+    @Setup
+    public void setup() {
+        channel = ServerPipelines.newServerChannel(true);
+        ServerPipelines.authenticate(channel, MessageBase.newBuilder()
+                .setClientId("123456789")
+                .setCmd(CommandType.AUTH)
+                .setData("This is auth data")
+                .build());
+        MessageBase upload = MessageBase.newBuilder()
+                .setClientId("123456789")
+                .setCmd(CommandType.UPLOAD_DATA)
+                .setData("This is upload data")
+                .build();
+        if (batchSize == 1) {
+            frame = ServerPipelines.frame(upload);
+        } else {
+            MessageBase.Builder batch = MessageBase.newBuilder()
+                    .setClientId("123456789")
+                    .setCmd(CommandType.UPLOAD_BATCH);
+            for (int i = 0; i < batchSize; i++) {
+                batch.addBatch(upload);
+            }
+            frame = ServerPipelines.frame(batch.build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public int upload() {
+        channel.writeInbound(frame.duplicate());
+        return ServerPipelines.drainOutbound(channel);
+    }
+}
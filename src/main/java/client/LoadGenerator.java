@@ -0,0 +1,172 @@
+package client;
+
+import client.handler.LoadDeviceHandler;
+import codec.CompactHeartbeat;
+import codec.HeartbeatFrameDecoder;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import protobuf.Message;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测客户端：在一个 JVM 中用共享的 EventLoopGroup 模拟大量设备
+ * 1. 每个设备一个连接、一个 clientId（load-0, load-1, ...）
+ * 2. 本地地址轮流绑定到 127.0.0.0/8 中的 load.source.addresses 个地址上，突破单个源地址的端口数限制
+ *    （Linux 上 127.0.0.0/8 整段都是回环地址；其它系统需要先给回环网卡添加别名）
+ * 3. 按 load.connect.rate 控制每秒新建的连接数；心跳间隔默认由 server 下发，load.heartbeat.fixed=true 时固定为 load.heartbeat.millis
+ * 4. 定期输出吞吐量、连接耗时和心跳往返时间的百分位
+ * 5. load.logical.ids 大于 0 时每个连接模拟一个网关，认证后挂载该数量的子设备（load-0/0, load-0/1, ...），
+ *    上传数据以随机子设备的身份发送，心跳仍按连接发送
+ * 6. load.reliable.push=true 时协商可靠推送并累计确认收到的推送（模拟设备不重连，进度不跨连接保留）
+ * 参数通过系统属性传入，如 java -Dload.devices=20000 -Dload.connect.rate=2000 client.LoadGenerator
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final AttributeKey<String> CLIENT_ID = AttributeKey.valueOf("loadClientId");
+    // 每秒分成多少批发起连接
+    private static final int CONNECT_TICKS_PER_SECOND = 100;
+
+    private final String host = System.getProperty("load.host", "127.0.0.1");
+    private final int port = Integer.getInteger("load.port", 8090);
+    private final int devices = Integer.getInteger("load.devices", 1000);
+    private final int connectRate = Integer.getInteger("load.connect.rate", 500);
+    private final int sourceAddresses = Integer.getInteger("load.source.addresses", 16);
+    private final int threads = Integer.getInteger("load.threads", Runtime.getRuntime().availableProcessors());
+    // server 没有下发心跳间隔，或 load.heartbeat.fixed 为 true 时使用的间隔
+    private final long heartbeatMillis = Long.getLong("load.heartbeat.millis", 10000L);
+    private final boolean fixedHeartbeat = Boolean.getBoolean("load.heartbeat.fixed");
+    // 每次心跳后上传数据的概率
+    private final double uploadRatio = Double.parseDouble(System.getProperty("load.upload.ratio", "0.1"));
+    // 大于 1 时以 UPLOAD_BATCH 上传
+    private final int batchSize = Integer.getInteger("load.upload.batch.size", 1);
+    // 每个连接挂载的子设备数，0 表示不使用多路复用
+    private final int logicalIds = Integer.getInteger("load.logical.ids", 0);
+    // 协商可靠推送，按 load.push.ack.every 条或 load.push.ack.delay.millis 毫秒累计确认，
+    // 空洞未补上时每 load.push.nack.retry.millis 毫秒重发 NACK
+    private final boolean reliablePush = Boolean.getBoolean("load.reliable.push");
+    private final int pushAckEvery = Integer.getInteger("load.push.ack.every", 32);
+    private final long pushAckDelayMillis = Long.getLong("load.push.ack.delay.millis", 200L);
+    private final long pushNackRetryMillis = Long.getLong("load.push.nack.retry.millis", 1000L);
+    private final int reportSeconds = Integer.getInteger("load.report.seconds", 5);
+    // 压测时长，0 表示一直运行
+    private final int durationSeconds = Integer.getInteger("load.duration.seconds", 0);
+
+    private final LoadStats stats = new LoadStats();
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextDevice = new AtomicInteger();
+    private NioEventLoopGroup group;
+    // 建连 tick 之间累计的额度，只在建连任务中访问
+    private long connectCredit;
+    private Bootstrap bootstrap;
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator().run();
+    }
+
+    public void run() throws Exception {
+        group = new NioEventLoopGroup(threads);
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    public void initChannel(SocketChannel ch) throws Exception {
+                        ChannelPipeline p = ch.pipeline();
+                        p.addLast("frameDecoder", new HeartbeatFrameDecoder(CompactHeartbeat.PONG));
+                        p.addLast("protobufDecoder", new ProtobufDecoder(Message.MessageBase.getDefaultInstance()));
+                        p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
+                        p.addLast("protobufEncoder", new ProtobufEncoder());
+                        p.addLast("deviceHandler", new LoadDeviceHandler(
+                                ch.attr(CLIENT_ID).get(), heartbeatMillis, fixedHeartbeat, uploadRatio, batchSize, logicalIds,
+                                reliablePush ? new PushReceiver(pushAckEvery, pushAckDelayMillis, pushNackRetryMillis) : null, stats));
+                    }
+                });
+        logger.info("Starting {} devices against {}:{}, {} connects/s from {} source addresses",
+                devices, host, port, connectRate, sourceAddresses);
+
+        InetSocketAddress remote = new InetSocketAddress(host, port);
+        group.next().scheduleAtFixedRate(() -> {
+            // 每个 tick 累加 connectRate，每满 CONNECT_TICKS_PER_SECOND 发起一个连接，余数留到下一个 tick，
+            // 平均速率等于 connectRate，不会被取整到每 tick 的整数倍
+            connectCredit += connectRate;
+            long count = connectCredit / CONNECT_TICKS_PER_SECOND;
+            connectCredit -= count * CONNECT_TICKS_PER_SECOND;
+            for (long i = 0; i < count; i++) {
+                int device = nextDevice.getAndIncrement();
+                if (device >= devices) {
+                    return;
+                }
+                connect(remote, device);
+            }
+        }, 0, TimeUnit.SECONDS.toMicros(1) / CONNECT_TICKS_PER_SECOND, TimeUnit.MICROSECONDS);
+        group.next().scheduleAtFixedRate(() -> logger.info(stats.report()),
+                reportSeconds, reportSeconds, TimeUnit.SECONDS);
+
+        CountDownLatch done = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(done::countDown));
+        if (durationSeconds > 0) {
+            done.await(durationSeconds, TimeUnit.SECONDS);
+        } else {
+            done.await();
+        }
+        logger.info("Final: {}", stats.report());
+        for (Channel channel : channels) {
+            channel.close();
+        }
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    private void connect(InetSocketAddress remote, int device) {
+        String clientId = "load-" + device;
+        long start = System.nanoTime();
+        Bootstrap b = bootstrap.clone().attr(CLIENT_ID, clientId);
+        ChannelFuture future = b.connect(remote, sourceAddress(device));
+        future.addListener((ChannelFuture f) -> {
+            if (f.isSuccess()) {
+                stats.onConnected(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                channels.add(f.channel());
+                f.channel().closeFuture().addListener(c -> channels.remove(f.channel()));
+            } else {
+                stats.onConnectFailure();
+                logger.debug("Connect failed for {}", clientId, f.cause());
+            }
+        });
+    }
+
+    /**
+     * 第 device 个设备的本地地址：127.0.0.1 起依次分配 sourceAddresses 个地址，端口由系统分配
+     */
+    private InetSocketAddress sourceAddress(int device) {
+        int host = 1 + device % Math.max(1, sourceAddresses);
+        byte[] address = {127, (byte) (host >>> 16), (byte) (host >>> 8), (byte) host};
+        try {
+            return new InetSocketAddress(InetAddress.getByAddress(address), 0);
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
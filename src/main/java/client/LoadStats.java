@@ -0,0 +1,78 @@
+package client;
+
+import util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测统计，所有模拟设备共享，计数用 LongAdder，延迟用无锁直方图（微秒）
+ */
+public class LoadStats {
+    private static final long MAX_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    final LongAdder connected = new LongAdder();
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder disconnected = new LongAdder();
+    final LongAdder sent = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder attached = new LongAdder();
+    final LatencyHistogram connectLatency = new LatencyHistogram(MAX_MICROS);
+    final LatencyHistogram rtt = new LatencyHistogram(MAX_MICROS);
+
+    private long lastSent;
+    private long lastReceived;
+    private long lastReportNanos = System.nanoTime();
+
+    public void onConnected(long connectMicros) {
+        connected.increment();
+        connectLatency.record(connectMicros);
+    }
+
+    public void onConnectFailure() {
+        connectFailures.increment();
+    }
+
+    public void onDisconnected() {
+        disconnected.increment();
+    }
+
+    public void onSent() {
+        sent.increment();
+    }
+
+    public void onReceived() {
+        received.increment();
+    }
+
+    public void onAttached(int count) {
+        attached.add(count);
+    }
+
+    public void onDetached(int count) {
+        attached.add(-count);
+    }
+
+    public void onRtt(long rttMicros) {
+        rtt.record(rttMicros);
+    }
+
+    /**
+     * 自上次报告以来的吞吐量，以及累计的连接耗时和往返时间百分位，只由报告线程调用
+     */
+    public String report() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1, now - lastReportNanos) / 1e9;
+        long sentTotal = sent.sum();
+        long receivedTotal = received.sum();
+        String report = String.format(
+                "active=%d attached=%d connectFailures=%d disconnected=%d sent=%.0f/s received=%.0f/s connect(us)=%s rtt(us)=%s",
+                connected.sum() - disconnected.sum(), attached.sum(), connectFailures.sum(), disconnected.sum(),
+                (sentTotal - lastSent) / seconds, (receivedTotal - lastReceived) / seconds,
+                connectLatency.snapshot(), rtt.snapshot());
+        lastSent = sentTotal;
+        lastReceived = receivedTotal;
+        lastReportNanos = now;
+        return report;
+    }
+}
@@ -2,6 +2,9 @@ package client;
 
 import client.handler.IdleClientHandler;
 import client.handler.LogicClientHandler;
+import client.handler.RequestHandler;
+import codec.CompactHeartbeat;
+import codec.HeartbeatFrameDecoder;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -9,20 +12,24 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufEncoder;
-import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import protobuf.Message;
+import util.LatencyHistogram;
+import util.Reconnector;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
  * netty 客户端
+ * 断线后由 {@link Reconnector} 按带随机抖动的指数退避重连
+ * {@link #request} 发送带 correlationId 的请求并异步等待响应，可以流水线发送多个请求
+ * 协商可靠推送，接收进度由 {@link PushReceiver} 跨重连保留，重连后 server 重传未确认的推送
  */
 public class NettyClient {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -32,20 +39,33 @@ public class NettyClient {
     private final static int READER_IDLE_TIME_SECONDS = 20; // 读操作空闲 20 秒
     private final static int WRITER_IDLE_TIME_SECONDS = 20; // 写操作空闲 20 秒
     private final static int ALL_IDLE_TIME_SECONDS = 40;    // 读写全部空闲 40 秒
+    private final static long RTT_MAX_MICROS = TimeUnit.SECONDS.toMicros(60); // 往返时间直方图上限
+    private final static long RECONNECT_BASE_MILLIS = 1000;                   // 重连最短等待 1 秒
+    private final static long RECONNECT_CAP_MILLIS = 60000;                   // 重连最长等待 60 秒
+    private final static int PUSH_ACK_EVERY = 32;                             // 每收到 32 条推送确认一次
+    private final static long PUSH_ACK_DELAY_MILLIS = 200;                    // 或最多延迟 200 毫秒确认
+    private final static long PUSH_NACK_RETRY_MILLIS = 1000;                  // 空洞未补上时每秒重发 NACK
 
     private NioEventLoopGroup workerGroup = new NioEventLoopGroup(4);
     private Bootstrap b;
-    private Channel channel;
-    private int tryTimes = 0;
+    private Reconnector reconnector;
+    // 本节点的心跳往返时间（微秒）
+    private final LatencyHistogram rttHistogram = new LatencyHistogram(RTT_MAX_MICROS);
+    // 可靠推送的接收进度，重连后继续使用
+    private final PushReceiver pushes = new PushReceiver(PUSH_ACK_EVERY, PUSH_ACK_DELAY_MILLIS, PUSH_NACK_RETRY_MILLIS);
 
     public static void main(String[] args) throws Exception {
         NettyClient client = new NettyClient();
         client.connect(HOST, PORT);
+        // EventLoop 线程为守护线程，main 线程等待线程组关闭
+        client.workerGroup.terminationFuture().sync();
     }
 
     public void connect(String host, int port) throws Exception {
         try {
             b = new Bootstrap();
+            reconnector = new Reconnector(b, workerGroup.next(), InetSocketAddress.createUnresolved(host, port),
+                    RECONNECT_BASE_MILLIS, RECONNECT_CAP_MILLIS);
             b.group(workerGroup);
             b.channel(NioSocketChannel.class);
             b.option(ChannelOption.SO_KEEPALIVE, true);
@@ -57,59 +77,52 @@ public class NettyClient {
                     // 心跳
                     p.addLast("idleStateHandler", new IdleStateHandler(READER_IDLE_TIME_SECONDS
                             , WRITER_IDLE_TIME_SECONDS, ALL_IDLE_TIME_SECONDS, TimeUnit.SECONDS));
-                    p.addLast("idleTimeoutHandler", new IdleClientHandler(NettyClient.this));
+                    p.addLast("idleTimeoutHandler", new IdleClientHandler());
 
-                    p.addLast(new ProtobufVarint32FrameDecoder());
-                    p.addLast(new ProtobufDecoder(Message.MessageBase.getDefaultInstance()));
+                    p.addLast("frameDecoder", new HeartbeatFrameDecoder(CompactHeartbeat.PONG));
+                    p.addLast("protobufDecoder", new ProtobufDecoder(Message.MessageBase.getDefaultInstance()));
 
-                    p.addLast(new ProtobufVarint32LengthFieldPrepender());
-                    p.addLast(new ProtobufEncoder());
+                    p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
+                    p.addLast("protobufEncoder", new ProtobufEncoder());
 
-                    p.addLast("clientHandler", new LogicClientHandler());
+                    p.addLast(RequestHandler.NAME, new RequestHandler());
+                    p.addLast("clientHandler", new LogicClientHandler(rttHistogram, reconnector, pushes));
                 }
             });
-            doConnect();
+            reconnector.start();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * 重连，连接失败 10 秒后重试连接
+     * 发送请求，返回在收到带相同 correlationId 的响应时完成的 future；超时以 TimeoutException 失败，
+     * 当前没有连接或连接断开时以 ClosedChannelException 失败
      */
-    public void doConnect() throws IOException {
-        if (channel != null && channel.isActive()) {
-            return;
+    public CompletableFuture<Message.MessageBase> request(Message.MessageBase msg, long timeoutMillis) {
+        Channel channel = reconnector.channel();
+        RequestHandler handler = channel == null ? null : (RequestHandler) channel.pipeline().get(RequestHandler.NAME);
+        if (handler == null) {
+            CompletableFuture<Message.MessageBase> future = new CompletableFuture<>();
+            future.completeExceptionally(new ClosedChannelException());
+            return future;
         }
-        tryTimes++;
-        logger.info("" + tryTimes);
-        ChannelFuture future = b.connect(HOST, PORT);
+        return handler.request(msg, timeoutMillis);
+    }
 
-        future.addListener(new ChannelFutureListener() {
-            public void operationComplete(ChannelFuture futureListener) throws Exception {
-                if (futureListener.isSuccess()) {
-                    channel = futureListener.channel();
-                    channel.closeFuture();
-                    workerGroup.shutdownGracefully();
-                    logger.info("Connect to server successfully!");
-                } else {
-                    logger.warn("Failed to connect to server, try connect after 10s");
-                    futureListener.channel().eventLoop().schedule(() -> {
-                        try {
-                            doConnect();
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    }, 10, TimeUnit.SECONDS);
-                }
-            }
-        });
+    public LatencyHistogram getRttHistogram() {
+        return rttHistogram;
+    }
 
-        //标准输入
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(System.in));
-        //利用死循环，不断读取客户端在控制台上的输入内容
-        for (; ; ) {
-            channel.writeAndFlush(bufferedReader.readLine() + "\r\n");
-        }
+    /**
+     * 断线重连，已有连接或连接尝试时直接返回，不阻塞调用线程
+     */
+    public void doConnect() {
+        reconnector.reconnect();
+    }
+
+    public void close() {
+        reconnector.stop();
+        workerGroup.shutdownGracefully();
     }
-}
\ No newline at end of file
+}
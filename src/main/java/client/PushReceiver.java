@@ -0,0 +1,145 @@
+package client;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.ScheduledFuture;
+import protobuf.Command;
+import protobuf.Message;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可靠推送的接收端，跨重连保留进度，同一客户端的所有连接共享一个实例
+ * 1. 只接受序号为 已收到的最大连续序号 + 1 的推送，重复的推送丢弃
+ * 2. 累计确认：每收到 ackEvery 条或第一条未确认的推送之后 ackDelayMillis 毫秒发送一个 ack，以先到者为准
+ * 3. 收到重复推送（重传与原推送都到达）时在 ackDelayMillis 内补一个 ack，多条重复只确认一次
+ * 4. 发现空洞时立即发送 NACK：PUSH_DATA_BACK 带上 ack 和缺失的第一个序号 seq，服务端从 ack + 1 开始重传；
+ *    NACK 或重传也可能被丢弃，空洞未补上之前每 nackRetryMillis 毫秒重发一次
+ * 5. 认证时在 AUTH 中上报 {@link #lastDelivered}，收到 AUTH_BACK 后以服务端下发的 ack 为起点，见 {@link #resume}
+ */
+public class PushReceiver {
+    private final int ackEvery;
+    private final long ackDelayMillis;
+    private final long nackRetryMillis;
+
+    private long lastDelivered;
+    private long lastAcked;
+    // 收到了重复推送，下一次定时确认即使没有新进度也要发出
+    private boolean ackDue;
+    private ScheduledFuture<?> ackTimer;
+    // 不为 null 表示存在未补上的空洞
+    private ScheduledFuture<?> nackTimer;
+
+    public PushReceiver(int ackEvery, long ackDelayMillis, long nackRetryMillis) {
+        this.ackEvery = Math.max(1, ackEvery);
+        this.ackDelayMillis = ackDelayMillis;
+        this.nackRetryMillis = Math.max(1, nackRetryMillis);
+    }
+
+    /**
+     * 已收到的最大连续序号
+     */
+    public synchronized long lastDelivered() {
+        return lastDelivered;
+    }
+
+    /**
+     * 认证成功后以服务端的 ack 为起点；小于本地进度说明服务端丢失了记录，大于本地进度说明本地进度丢失，都以服务端为准
+     */
+    public synchronized void resume(long serverAck) {
+        lastDelivered = serverAck;
+        lastAcked = serverAck;
+        ackDue = false;
+        cancelTimer();
+        cancelNack();
+    }
+
+    /**
+     * 处理一条带 seq 的推送，返回 true 表示按顺序到达、应当交给业务处理
+     */
+    public synchronized boolean receive(ChannelHandlerContext ctx, Message.MessageBase push) {
+        long seq = push.getSeq();
+        String clientId = push.getClientId();
+        if (seq <= lastDelivered) {
+            ackDue = true;
+            scheduleAck(ctx, clientId);
+            return false;
+        }
+        if (seq != lastDelivered + 1) {
+            if (nackTimer == null) {
+                sendNack(ctx, clientId);
+            }
+            return false;
+        }
+        lastDelivered = seq;
+        cancelNack();
+        if (lastDelivered - lastAcked >= ackEvery) {
+            sendAck(ctx, clientId);
+        } else {
+            scheduleAck(ctx, clientId);
+        }
+        return true;
+    }
+
+    private void scheduleAck(ChannelHandlerContext ctx, String clientId) {
+        if (ackTimer == null) {
+            ackTimer = ctx.executor().schedule(() -> onAckTimer(ctx, clientId), ackDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void onAckTimer(ChannelHandlerContext ctx, String clientId) {
+        ackTimer = null;
+        if ((lastDelivered > lastAcked || ackDue) && ctx.channel().isActive()) {
+            sendAck(ctx, clientId);
+        }
+    }
+
+    private synchronized void onNackTimer(ChannelHandlerContext ctx, String clientId) {
+        if (nackTimer == null) {
+            // 空洞已经补上
+            return;
+        }
+        nackTimer = null;
+        if (ctx.channel().isActive()) {
+            sendNack(ctx, clientId);
+        }
+    }
+
+    private void sendAck(ChannelHandlerContext ctx, String clientId) {
+        cancelTimer();
+        lastAcked = lastDelivered;
+        ackDue = false;
+        ctx.writeAndFlush(Message.MessageBase.newBuilder()
+                .setClientId(clientId)
+                .setCmd(Command.CommandType.PUSH_DATA_BACK)
+                .setAck(lastDelivered)
+                .build());
+    }
+
+    private void sendNack(ChannelHandlerContext ctx, String clientId) {
+        // NACK 同时确认到 lastDelivered
+        cancelTimer();
+        lastAcked = lastDelivered;
+        ackDue = false;
+        ctx.writeAndFlush(Message.MessageBase.newBuilder()
+                .setClientId(clientId)
+                .setCmd(Command.CommandType.PUSH_DATA_BACK)
+                .setAck(lastDelivered)
+                .setSeq(lastDelivered + 1)
+                .build());
+        nackTimer = ctx.executor().schedule(() -> onNackTimer(ctx, clientId), nackRetryMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelTimer() {
+        if (ackTimer != null) {
+            ackTimer.cancel(false);
+            ackTimer = null;
+        }
+    }
+
+    private void cancelNack() {
+        if (nackTimer != null) {
+            nackTimer.cancel(false);
+            nackTimer = null;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package client.handler;
 
-import client.NettyClient;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.timeout.IdleState;
@@ -13,13 +13,10 @@ import protobuf.Message;
 public class IdleClientHandler extends SimpleChannelInboundHandler<Message> {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private NettyClient nettyClient;
     private int heartbeatCount = 0;
     private final static String CLIENTID = "123456789";
-
-    public IdleClientHandler(NettyClient nettyClient) {
-        this.nettyClient = nettyClient;
-    }
+    // 紧凑心跳模式下每隔多少次发送一次完整 ping 上报往返时间
+    private final static int RTT_REPORT_INTERVAL = 10;
 
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
@@ -42,28 +39,32 @@ public class IdleClientHandler extends SimpleChannelInboundHandler<Message> {
 
     /**
      * 发送 ping 消息
+     * 完整 ping 带发送时刻和上一次测得的往返时间；已协商紧凑心跳时，每 RTT_REPORT_INTERVAL 次才发一次完整 ping 用于上报
      */
     protected void sendPingMsg(ChannelHandlerContext context) {
-        context.writeAndFlush(
-                Message.MessageBase.newBuilder()
-                        .setClientId(CLIENTID)
-                        .setCmd(Command.CommandType.PING)
-                        .setData("This is a ping msg")
-                        .build()
-        );
+        long now = LogicClientHandler.nowMicros();
+        context.attr(LogicClientHandler.PING_SENT_MICROS).set(now);
+        if (Boolean.TRUE.equals(context.attr(LogicClientHandler.COMPACT_HEARTBEAT).get())
+                && heartbeatCount % RTT_REPORT_INTERVAL != 0) {
+            // 已协商紧凑心跳：空 buffer 经长度前缀编码后即为单字节 0x00 心跳帧
+            // 本 handler 位于编码器之前，需从 channel 尾部写出才会经过编码器
+            context.channel().writeAndFlush(Unpooled.EMPTY_BUFFER);
+        } else {
+            Message.MessageBase.Builder ping = Message.MessageBase.newBuilder()
+                    .setClientId(CLIENTID)
+                    .setCmd(Command.CommandType.PING)
+                    .setData("This is a ping msg")
+                    .setTimestamp(now);
+            Integer lastRtt = context.attr(LogicClientHandler.LAST_RTT_MICROS).get();
+            if (lastRtt != null) {
+                ping.setRttMicros(lastRtt);
+            }
+            context.channel().writeAndFlush(ping.build());
+        }
         heartbeatCount++;
         logger.info("Client sent ping msg to " + context.channel().remoteAddress() + ", count: " + heartbeatCount);
     }
 
-    /**
-     * 处理断开重连
-     */
-    @Override
-    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        super.channelInactive(ctx);
-        nettyClient.doConnect();
-    }
-
     @Override
     protected void messageReceived(ChannelHandlerContext ctx, Message msg) throws Exception {
 
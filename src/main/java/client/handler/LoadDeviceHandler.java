@@ -0,0 +1,260 @@
+package client.handler;
+
+import client.LoadStats;
+import client.PushReceiver;
+import codec.CompactHeartbeat;
+import codec.Features;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.concurrent.ScheduledFuture;
+import protobuf.Command;
+import protobuf.Message;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测中的一个模拟设备，每个连接一个实例，只在所属 EventLoop 中执行
+ * 1. 连接后以自己的 clientId 认证，协商紧凑心跳
+ * 2. 认证后按 server 下发的间隔发送心跳（首次随机延迟，避免所有设备同时发送），每次心跳后按 uploadRatio 的概率上传数据
+ * 3. 每次 ping 记录发送时刻，收到 pong 时计算往返时间；紧凑心跳模式下每 RTT_REPORT_INTERVAL 次发送一次完整 ping 向 server 上报
+ * 4. logicalIds 大于 0 时作为网关：协商多路复用，认证后用一个 ATTACH 挂载所有子设备，上传数据以随机子设备的身份发送
+ * 5. 带 correlationId 的 PUSH_DATA 为 server 的请求，立即以 PUSH_DATA_BACK 确认
+ * 6. pushes 不为 null 时协商可靠推送，带 seq 的 PUSH_DATA 交给 {@link PushReceiver} 累计确认
+ */
+public class LoadDeviceHandler extends SimpleChannelInboundHandler<Object> {
+    // 紧凑心跳模式下每隔多少次发送一次完整 ping 上报往返时间
+    private static final int RTT_REPORT_INTERVAL = 10;
+
+    private final String clientId;
+    private final long heartbeatMillis;
+    private final double uploadRatio;
+    private final int batchSize;
+    private final int logicalIds;
+    // 为 null 时不协商可靠推送
+    private final PushReceiver pushes;
+    // 为 true 时忽略 server 下发的间隔，固定按 heartbeatMillis 发送
+    private final boolean fixedInterval;
+    private final LoadStats stats;
+
+    private boolean compact;
+    private long pingSentNanos;
+    private int lastRttMicros;
+    private int ticks;
+    private ScheduledFuture<?> heartbeat;
+    private long periodMillis;
+    // 挂载成功的子设备
+    private String[] attached = new String[0];
+
+    public LoadDeviceHandler(String clientId, long heartbeatMillis, boolean fixedInterval, double uploadRatio,
+                             int batchSize, int logicalIds, PushReceiver pushes, LoadStats stats) {
+        this.clientId = clientId;
+        this.heartbeatMillis = heartbeatMillis;
+        this.fixedInterval = fixedInterval;
+        this.uploadRatio = uploadRatio;
+        this.batchSize = batchSize;
+        this.logicalIds = logicalIds;
+        this.pushes = pushes;
+        this.stats = stats;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        int features = Features.COMPACT_HEARTBEAT;
+        if (logicalIds > 0) {
+            features |= Features.MULTIPLEX;
+        }
+        Message.MessageBase.Builder auth = message(Command.CommandType.AUTH, "This is auth data");
+        if (pushes != null) {
+            features |= Features.RELIABLE_PUSH;
+            auth.setAck(pushes.lastDelivered());
+        }
+        send(ctx, auth.setFeatures(features).build());
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+        stats.onDisconnected();
+        stats.onDetached(attached.length);
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    protected void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+        stats.onReceived();
+        if (msg == CompactHeartbeat.PONG) {
+            onPong();
+            return;
+        }
+        Message.MessageBase msgBase = (Message.MessageBase) msg;
+        switch (msgBase.getCmd()) {
+            case AUTH_BACK:
+                compact = Features.isNegotiated(msgBase.getFeatures(), Features.COMPACT_HEARTBEAT);
+                scheduleHeartbeat(ctx, msgBase.getHeartbeatSeconds());
+                if (pushes != null && Features.isNegotiated(msgBase.getFeatures(), Features.RELIABLE_PUSH)) {
+                    pushes.resume(msgBase.getAck());
+                }
+                if (logicalIds > 0 && Features.isNegotiated(msgBase.getFeatures(), Features.MULTIPLEX)) {
+                    attach(ctx);
+                }
+                break;
+            case ATTACH_BACK:
+                onAttached(msgBase);
+                break;
+            case DETACH:
+                onDetached(msgBase);
+                break;
+            case PUSH_DATA:
+                if (msgBase.hasSeq() && pushes != null) {
+                    pushes.receive(ctx, msgBase);
+                }
+                if (msgBase.hasCorrelationId()) {
+                    // server 的请求，以目标 clientId（可能是子设备）确认
+                    send(ctx, message(msgBase.getClientId(), Command.CommandType.PUSH_DATA_BACK, "ack")
+                            .setCorrelationId(msgBase.getCorrelationId())
+                            .build());
+                }
+                break;
+            case PONG:
+                onPong();
+                if (msgBase.getHeartbeatSeconds() > 0) {
+                    scheduleHeartbeat(ctx, msgBase.getHeartbeatSeconds());
+                }
+                break;
+            case RECONNECT:
+                ctx.close();
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        ctx.close();
+    }
+
+    /**
+     * server 下发了间隔（秒）时按 server 的间隔，否则按 load.heartbeat.millis；首次随机延迟
+     */
+    private void scheduleHeartbeat(ChannelHandlerContext ctx, int serverSeconds) {
+        long period = serverSeconds > 0 && !fixedInterval ? TimeUnit.SECONDS.toMillis(serverSeconds) : heartbeatMillis;
+        if (heartbeat != null) {
+            if (period == periodMillis) {
+                return;
+            }
+            heartbeat.cancel(false);
+        }
+        periodMillis = period;
+        long initialDelay = ThreadLocalRandom.current().nextLong(Math.max(1, period));
+        heartbeat = ctx.executor().scheduleAtFixedRate(
+                () -> tick(ctx), initialDelay, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        pingSentNanos = System.nanoTime();
+        if (compact && ticks++ % RTT_REPORT_INTERVAL != 0) {
+            // 空 buffer 经长度前缀编码后即为单字节紧凑心跳帧
+            ctx.write(Unpooled.EMPTY_BUFFER);
+        } else {
+            // 完整 ping 带时间戳并上报上一次的往返时间，server 据此统计
+            Message.MessageBase.Builder ping = message(Command.CommandType.PING, "This is a ping msg")
+                    .setTimestamp(TimeUnit.NANOSECONDS.toMicros(pingSentNanos));
+            if (lastRttMicros > 0) {
+                ping.setRttMicros(lastRttMicros);
+            }
+            ctx.write(ping.build());
+        }
+        stats.onSent();
+        if (uploadRatio > 0 && ThreadLocalRandom.current().nextDouble() < uploadRatio) {
+            ctx.write(upload());
+            stats.onSent();
+        }
+        ctx.flush();
+    }
+
+    private void attach(ChannelHandlerContext ctx) {
+        Message.MessageBase.Builder attach = message(Command.CommandType.ATTACH, "");
+        for (int i = 0; i < logicalIds; i++) {
+            attach.addBatch(Message.MessageBase.newBuilder()
+                    .setClientId(clientId + "/" + i)
+                    .setCmd(Command.CommandType.ATTACH));
+        }
+        send(ctx, attach.build());
+    }
+
+    private void onAttached(Message.MessageBase back) {
+        String[] ids = new String[attached.length + back.getBatchCount()];
+        System.arraycopy(attached, 0, ids, 0, attached.length);
+        for (int i = 0; i < back.getBatchCount(); i++) {
+            ids[attached.length + i] = back.getBatch(i).getClientId();
+        }
+        attached = ids;
+        stats.onAttached(back.getBatchCount());
+    }
+
+    /**
+     * server 拒绝挂载或子设备被其它连接接管
+     */
+    private void onDetached(Message.MessageBase detach) {
+        Set<String> removed = new HashSet<>();
+        if (detach.getBatchCount() == 0) {
+            removed.add(detach.getClientId());
+        }
+        for (Message.MessageBase entry : detach.getBatchList()) {
+            removed.add(entry.getClientId());
+        }
+        String[] ids = Arrays.stream(attached).filter(id -> !removed.contains(id)).toArray(String[]::new);
+        stats.onDetached(attached.length - ids.length);
+        attached = ids;
+    }
+
+    private Message.MessageBase upload() {
+        // 网关以随机子设备的身份上传
+        String source = attached.length == 0 ? clientId : attached[ThreadLocalRandom.current().nextInt(attached.length)];
+        if (batchSize <= 1) {
+            return message(source, Command.CommandType.UPLOAD_DATA, "This is upload data").build();
+        }
+        Message.MessageBase entry = message(source, Command.CommandType.UPLOAD_DATA, "This is upload data").build();
+        Message.MessageBase.Builder batch = message(source, Command.CommandType.UPLOAD_BATCH, "");
+        for (int i = 0; i < batchSize; i++) {
+            batch.addBatch(entry);
+        }
+        return batch.build();
+    }
+
+    private void onPong() {
+        if (pingSentNanos != 0) {
+            long rtt = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - pingSentNanos);
+            stats.onRtt(rtt);
+            lastRttMicros = (int) Math.min(rtt, Integer.MAX_VALUE);
+            pingSentNanos = 0;
+        }
+    }
+
+    private void send(ChannelHandlerContext ctx, Message.MessageBase msg) {
+        ctx.writeAndFlush(msg);
+        stats.onSent();
+    }
+
+    private Message.MessageBase.Builder message(Command.CommandType cmd, String data) {
+        return message(clientId, cmd, data);
+    }
+
+    private Message.MessageBase.Builder message(String source, Command.CommandType cmd, String data) {
+        return Message.MessageBase.newBuilder()
+                .setClientId(source)
+                .setCmd(cmd)
+                .setData(data);
+    }
+}
@@ -1,17 +1,56 @@
 package client.handler;
 
+import client.PushReceiver;
+import codec.CompactHeartbeat;
+import codec.DeflateFrameCompression;
+import codec.Features;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import protobuf.Command;
 import protobuf.Message;
+import util.LatencyHistogram;
+import util.Reconnector;
+
+import java.util.concurrent.TimeUnit;
 
 public class LogicClientHandler extends SimpleChannelInboundHandler<Message.MessageBase> {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final static String CLIENTID = "123456789";
 
+    // 小于该长度的帧不压缩
+    private final static int COMPRESSION_THRESHOLD = 256;
+    private final static int COMPRESSION_LEVEL = 6;
+
+    // 服务端确认支持紧凑心跳后置为 true
+    static final AttributeKey<Boolean> COMPACT_HEARTBEAT = AttributeKey.valueOf("compactHeartbeat");
+    // 最近一次 ping 的发送时刻（微秒），紧凑 pong 不带时间戳，用它计算往返时间
+    static final AttributeKey<Long> PING_SENT_MICROS = AttributeKey.valueOf("pingSentMicros");
+    // 最近一次测得的往返时间（微秒），在下一个完整 ping 中上报给 server
+    static final AttributeKey<Integer> LAST_RTT_MICROS = AttributeKey.valueOf("lastRttMicros");
+    // 当前使用的 server 下发的心跳间隔（秒）
+    static final AttributeKey<Integer> HEARTBEAT_SECONDS = AttributeKey.valueOf("heartbeatSeconds");
+
+    private final LatencyHistogram rttHistogram;
+    private final Reconnector reconnector;
+    // 可靠推送的接收进度，跨重连保留
+    private final PushReceiver pushes;
+
+    public LogicClientHandler(LatencyHistogram rttHistogram, Reconnector reconnector, PushReceiver pushes) {
+        this.rttHistogram = rttHistogram;
+        this.reconnector = reconnector;
+        this.pushes = pushes;
+    }
+
+    static long nowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime());
+    }
+
     // 连接成功后，向 server 发送消息
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
@@ -19,10 +58,27 @@ public class LogicClientHandler extends SimpleChannelInboundHandler<Message.Mess
         authMsg.setClientId(CLIENTID);
         authMsg.setCmd(Command.CommandType.AUTH);
         authMsg.setData("This is auth data");
+        authMsg.setFeatures(Features.COMPACT_HEARTBEAT | Features.DEFLATE | Features.RELIABLE_PUSH);
+        // 上报已收到的推送进度，server 从这里开始重传
+        authMsg.setAck(pushes.lastDelivered());
 
         ctx.writeAndFlush(authMsg.build());
     }
 
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg == CompactHeartbeat.PONG) {
+            // 接收到 server 返回的紧凑 pong
+            logger.debug("Received compact pong");
+            Long sent = ctx.attr(PING_SENT_MICROS).get();
+            if (sent != null) {
+                recordRtt(ctx, sent);
+            }
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         logger.debug("连接断开");
@@ -32,20 +88,51 @@ public class LogicClientHandler extends SimpleChannelInboundHandler<Message.Mess
     protected void messageReceived(ChannelHandlerContext ctx, Message.MessageBase msg) throws Exception {
         if (msg.getCmd().equals(Command.CommandType.AUTH_BACK)) {
             logger.debug("验证成功");
+            applyHeartbeatInterval(ctx, msg.getHeartbeatSeconds());
+            ctx.attr(COMPACT_HEARTBEAT).set(Features.isNegotiated(msg.getFeatures(), Features.COMPACT_HEARTBEAT));
+            if (Features.isNegotiated(msg.getFeatures(), Features.RELIABLE_PUSH)) {
+                pushes.resume(msg.getAck());
+            }
+            if (Features.isNegotiated(msg.getFeatures(), Features.DEFLATE)) {
+                // 使用服务端下发的字典启用帧压缩
+                new DeflateFrameCompression(msg.getDictionary().toByteArray(), COMPRESSION_THRESHOLD, COMPRESSION_LEVEL)
+                        .install(ctx.pipeline(), "frameDecoder", "frameEncoder");
+            }
             ctx.writeAndFlush(Message.MessageBase.newBuilder()
                     .setClientId(CLIENTID)
                     .setCmd(Command.CommandType.PUSH_DATA)
                     .setData("This is upload data")
                     .build());
+        } else if (msg.getCmd().equals(Command.CommandType.RECONNECT)) {
+            // server 即将下线，断开连接，按 server 给出的延迟重连
+            logger.info("Server asks to reconnect after {} ms {}", msg.getRetryAfterMillis(), msg.getData());
+            reconnector.retryAfter(msg.getRetryAfterMillis(), msg.getData());
+            ctx.close();
         } else if (msg.getCmd().equals(Command.CommandType.PING)) {
             // 接收到 server 发送的 ping 指令
             logger.info(msg.getData());
         } else if (msg.getCmd().equals(Command.CommandType.PONG)) {
-            // 接收到 server 发送的 pong 指令
+            // 接收到 server 发送的 pong 指令，带时间戳时为 server 回显的 ping 发送时刻
             logger.info(msg.getData());
+            applyHeartbeatInterval(ctx, msg.getHeartbeatSeconds());
+            if (msg.hasTimestamp()) {
+                recordRtt(ctx, msg.getTimestamp());
+            }
         } else if (msg.getCmd().equals(Command.CommandType.PUSH_DATA)) {
-            // 接收到 server 推送数据
+            // 接收到 server 推送数据，带 correlationId 时为 server 的请求，需要确认
+            if (msg.hasSeq() && !pushes.receive(ctx, msg)) {
+                // 重复或乱序的可靠推送，已由 PushReceiver 处理
+                return;
+            }
             logger.info(msg.getData());
+            if (msg.hasCorrelationId()) {
+                ctx.writeAndFlush(Message.MessageBase.newBuilder()
+                        .setClientId(msg.getClientId())
+                        .setCmd(Command.CommandType.PUSH_DATA_BACK)
+                        .setData("This is push data back")
+                        .setCorrelationId(msg.getCorrelationId())
+                        .build());
+            }
         } else if (msg.getCmd().equals(Command.CommandType.PUSH_DATA_BACK)) {
             // 接收到 server 返回数据
             logger.info(msg.getData());
@@ -53,4 +140,28 @@ public class LogicClientHandler extends SimpleChannelInboundHandler<Message.Mess
             logger.info(msg.getData());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 按 server 下发的间隔替换 IdleStateHandler：写空闲即发送心跳，读写全部空闲为两倍间隔，与 NettyClient 中默认值的比例一致
+     * seconds 为 0 表示 server 没有下发
+     */
+    private void applyHeartbeatInterval(ChannelHandlerContext ctx, int seconds) {
+        if (seconds <= 0 || Integer.valueOf(seconds).equals(ctx.attr(HEARTBEAT_SECONDS).get())) {
+            return;
+        }
+        ctx.attr(HEARTBEAT_SECONDS).set(seconds);
+        ChannelPipeline p = ctx.pipeline();
+        if (p.get("idleStateHandler") != null) {
+            p.replace("idleStateHandler", "idleStateHandler",
+                    new IdleStateHandler(seconds, seconds, seconds * 2, TimeUnit.SECONDS));
+            logger.info("Heartbeat interval set to {}s by server", seconds);
+        }
+    }
+
+    private void recordRtt(ChannelHandlerContext ctx, long sentMicros) {
+        long rtt = nowMicros() - sentMicros;
+        rttHistogram.record(rtt);
+        ctx.attr(LAST_RTT_MICROS).set((int) Math.min(rtt, Integer.MAX_VALUE));
+        logger.debug("Heartbeat rtt {} us, {}", rtt, rttHistogram.snapshot());
+    }
+}
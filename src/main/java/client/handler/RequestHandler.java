@@ -0,0 +1,91 @@
+package client.handler;
+
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import protobuf.Command;
+import protobuf.Message;
+import util.PendingRequests;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步请求 / 响应
+ * 1. {@link #request} 为请求分配 correlationId 后立即写出并返回 future，同一连接上可以同时有多个未完成的请求（流水线）
+ * 2. 带 correlationId 的响应在 EventLoop 中直接完成对应的 future，不再交给后面的 LogicClientHandler；
+ *    没有 correlationId 或找不到对应请求的消息照常向后传递；PUSH_DATA 是服务端发起的请求，
+ *    它的 correlationId 由服务端分配，与本端的请求无关，总是向后传递
+ * 3. 超时由共享的时间轮处理，连接关闭时所有未完成的请求以 ClosedChannelException 失败
+ * 位于编码器之后，每个连接一个实例
+ */
+public class RequestHandler extends ChannelHandlerAdapter {
+    public static final String NAME = "requestHandler";
+
+    private volatile ChannelHandlerContext ctx;
+    private PendingRequests<Message.MessageBase> pending;
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.pending = new PendingRequests<>(ctx.channel().eventLoop());
+        this.ctx = ctx;
+    }
+
+    /**
+     * 可在任意线程调用，写出和登记都在 EventLoop 中进行
+     */
+    public CompletableFuture<Message.MessageBase> request(Message.MessageBase msg, long timeoutMillis) {
+        CompletableFuture<Message.MessageBase> future = new CompletableFuture<>();
+        ChannelHandlerContext context = ctx;
+        if (context == null) {
+            future.completeExceptionally(new IllegalStateException("Handler not added to a pipeline"));
+            return future;
+        }
+        EventLoop loop = context.channel().eventLoop();
+        if (loop.inEventLoop()) {
+            send(context, msg, timeoutMillis, future);
+        } else {
+            loop.execute(() -> send(context, msg, timeoutMillis, future));
+        }
+        return future;
+    }
+
+    private void send(ChannelHandlerContext context, Message.MessageBase msg, long timeoutMillis,
+                      CompletableFuture<Message.MessageBase> future) {
+        if (!context.channel().isActive()) {
+            future.completeExceptionally(new ClosedChannelException());
+            return;
+        }
+        int correlationId = pending.register(future, timeoutMillis);
+        context.writeAndFlush(msg.toBuilder().setCorrelationId(correlationId).build()).addListener(f -> {
+            if (!f.isSuccess()) {
+                pending.fail(correlationId, f.cause());
+            }
+        });
+    }
+
+    /**
+     * 未完成的请求数，只能在 EventLoop 中调用
+     */
+    public int inFlight() {
+        return pending.size();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Message.MessageBase) {
+            Message.MessageBase msgBase = (Message.MessageBase) msg;
+            if (msgBase.getCorrelationId() != 0 && msgBase.getCmd() != Command.CommandType.PUSH_DATA
+                    && pending.complete(msgBase.getCorrelationId(), msgBase)) {
+                return;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        pending.failAll(new ClosedChannelException());
+        ctx.fireChannelInactive();
+    }
+}
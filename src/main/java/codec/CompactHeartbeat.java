@@ -0,0 +1,25 @@
+package codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * 紧凑心跳帧
+ * 在 varint32 长度前缀协议中，长度为 0 的帧（单字节 0x00）不可能是合法的 MessageBase（clientId、cmd 为必填字段），
+ * 因此用它表示心跳：客户端发出即为 ping，服务端返回即为 pong。
+ * 客户端在 AUTH 的 features 中声明 {@link Features#COMPACT_HEARTBEAT}，服务端在 AUTH_BACK 中确认后客户端才会改用紧凑心跳，
+ * 未协商的老客户端继续使用 CommandType.PING / PONG
+ */
+public enum CompactHeartbeat {
+    PING,
+    PONG;
+
+    private static final ByteBuf FRAME = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(new byte[]{0}));
+
+    /**
+     * 已编码好的完整心跳帧（含长度前缀），直接写到长度前缀编码器之下
+     */
+    public static ByteBuf frame() {
+        return FRAME.duplicate();
+    }
+}
@@ -0,0 +1,181 @@
+package codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 带预置字典的逐帧 deflate 压缩
+ * 1. 作用于去掉长度前缀后的帧内容：解压放在拆帧之后，压缩放在加长度前缀之前
+ * 2. 压缩帧以 0x00 开头（field number 为 0 的 tag 不可能出现在合法的 protobuf 消息开头），
+ *    未压缩的帧原样发送，因此小于阈值的帧、预编码的帧可以和压缩帧混合出现
+ * 3. 每帧独立压缩，Deflater / Inflater 按线程复用，不随连接数增长
+ */
+public class DeflateFrameCompression {
+    public static final String DECODER_NAME = "deflateDecoder";
+    public static final String ENCODER_NAME = "deflateEncoder";
+
+    private static final byte COMPRESSED_MARKER = 0;
+    // 解压后的最大帧长度，防止压缩炸弹
+    private static final int MAX_INFLATED_LENGTH = 1024 * 1024;
+
+    // 按压缩级别缓存，不同级别的实例共用线程时无需每帧 setLevel
+    private static final FastThreadLocal<Deflater[]> DEFLATERS = new FastThreadLocal<Deflater[]>() {
+        @Override
+        protected Deflater[] initialValue() throws Exception {
+            return new Deflater[Deflater.BEST_COMPRESSION + 1];
+        }
+    };
+
+    private static final FastThreadLocal<Inflater> INFLATER = new FastThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() throws Exception {
+            return new Inflater(true);
+        }
+    };
+
+    private final byte[] dictionary;
+    private final int threshold;
+    private final int level;
+
+    private final Encoder encoder = new Encoder();
+    private final Decoder decoder = new Decoder();
+
+    /**
+     * @param dictionary 预置字典，为空表示不使用字典
+     * @param threshold  小于该长度的帧不压缩
+     * @param level      压缩级别 0-9
+     */
+    public DeflateFrameCompression(byte[] dictionary, int threshold, int level) {
+        this.dictionary = dictionary == null ? new byte[0] : dictionary;
+        this.threshold = threshold;
+        this.level = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, level));
+    }
+
+    public byte[] dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * 把压缩 / 解压 handler 装到指定的拆帧、加长度前缀 handler 之后
+     */
+    public void install(ChannelPipeline p, String frameDecoderName, String frameEncoderName) {
+        if (p.get(DECODER_NAME) == null) {
+            p.addAfter(frameDecoderName, DECODER_NAME, decoder);
+        }
+        if (p.get(ENCODER_NAME) == null) {
+            p.addAfter(frameEncoderName, ENCODER_NAME, encoder);
+        }
+    }
+
+    private Deflater deflater() {
+        Deflater[] deflaters = DEFLATERS.get();
+        Deflater deflater = deflaters[level];
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            deflaters[level] = deflater;
+        }
+        return deflater;
+    }
+
+    @ChannelHandler.Sharable
+    private final class Encoder extends MessageToMessageEncoder<ByteBuf> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+            int length = msg.readableBytes();
+            if (length < threshold) {
+                out.add(msg.retain());
+                return;
+            }
+            Deflater deflater = deflater();
+            deflater.reset();
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            if (msg.hasArray()) {
+                deflater.setInput(msg.array(), msg.arrayOffset() + msg.readerIndex(), length);
+            } else {
+                byte[] input = new byte[length];
+                msg.getBytes(msg.readerIndex(), input);
+                deflater.setInput(input);
+            }
+            deflater.finish();
+
+            ByteBuf compressed = ctx.alloc().heapBuffer(length);
+            compressed.writeByte(COMPRESSED_MARKER);
+            while (!deflater.finished()) {
+                if (compressed.readableBytes() >= length) {
+                    // 压缩后没有变小，原样发送
+                    compressed.release();
+                    out.add(msg.retain());
+                    return;
+                }
+                compressed.ensureWritable(64);
+                int n = deflater.deflate(compressed.array(), compressed.arrayOffset() + compressed.writerIndex(),
+                        compressed.writableBytes());
+                compressed.writerIndex(compressed.writerIndex() + n);
+            }
+            out.add(compressed);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private final class Decoder extends MessageToMessageDecoder<ByteBuf> {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+            if (!msg.isReadable() || msg.getByte(msg.readerIndex()) != COMPRESSED_MARKER) {
+                out.add(msg.retain());
+                return;
+            }
+            int length = msg.readableBytes() - 1;
+            Inflater inflater = INFLATER.get();
+            inflater.reset();
+            if (msg.hasArray()) {
+                inflater.setInput(msg.array(), msg.arrayOffset() + msg.readerIndex() + 1, length);
+            } else {
+                byte[] input = new byte[length];
+                msg.getBytes(msg.readerIndex() + 1, input);
+                inflater.setInput(input);
+            }
+            if (dictionary.length > 0) {
+                // raw deflate 流不会请求字典，必须预先设置
+                inflater.setDictionary(dictionary);
+            }
+
+            ByteBuf inflated = ctx.alloc().heapBuffer(length << 1);
+            boolean success = false;
+            try {
+                while (!inflater.finished()) {
+                    inflated.ensureWritable(256);
+                    int n = inflater.inflate(inflated.array(), inflated.arrayOffset() + inflated.writerIndex(),
+                            inflated.writableBytes());
+                    inflated.writerIndex(inflated.writerIndex() + n);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new CorruptedFrameException("truncated deflate frame");
+                    }
+                    if (inflated.readableBytes() > MAX_INFLATED_LENGTH) {
+                        throw new CorruptedFrameException("inflated frame exceeds " + MAX_INFLATED_LENGTH + " bytes");
+                    }
+                }
+                success = true;
+            } catch (DataFormatException e) {
+                throw new CorruptedFrameException(e);
+            } finally {
+                if (!success) {
+                    inflated.release();
+                }
+            }
+            out.add(inflated);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package codec;
+
+/**
+ * MessageBase.features 协商位
+ * 客户端在 AUTH 中声明自己支持的能力，服务端在 AUTH_BACK 中返回双方都支持的部分
+ */
+public final class Features {
+    /**
+     * 紧凑心跳帧，见 {@link CompactHeartbeat}
+     */
+    public static final int COMPACT_HEARTBEAT = 1;
+    /**
+     * 带预置字典的 deflate 帧压缩，见 {@link DeflateFrameCompression}
+     */
+    public static final int DEFLATE = 1 << 1;
+    /**
+     * 多路复用：一个连接通过 ATTACH 挂载多个逻辑 clientId（网关下的子设备），心跳按连接发送
+     */
+    public static final int MULTIPLEX = 1 << 2;
+    /**
+     * 可靠推送：PUSH_DATA 带序号，客户端累计确认，服务端保留未确认的推送并在重连后重传
+     */
+    public static final int RELIABLE_PUSH = 1 << 3;
+
+    private Features() {
+    }
+
+    public static boolean isNegotiated(int features, int feature) {
+        return (features & feature) != 0;
+    }
+}
@@ -0,0 +1,67 @@
+package codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.List;
+
+/**
+ * 替代 ProtobufVarint32FrameDecoder：按 varint32 长度前缀拆帧，
+ * 长度为 0 的紧凑心跳帧在拆帧时直接识别，输出构造时指定的心跳对象，不再进入 protobuf 解码
+ */
+public class HeartbeatFrameDecoder extends ByteToMessageDecoder {
+    private final Object heartbeat;
+
+    /**
+     * @param heartbeat 收到紧凑心跳帧时向后传递的对象，服务端为 {@link CompactHeartbeat#PING}，客户端为 {@link CompactHeartbeat#PONG}
+     */
+    public HeartbeatFrameDecoder(Object heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        while (in.isReadable()) {
+            int preIndex = in.readerIndex();
+            int length = readRawVarint32(in);
+            if (preIndex == in.readerIndex()) {
+                // 长度前缀尚未收全
+                return;
+            }
+            if (length < 0) {
+                throw new CorruptedFrameException("negative length: " + length);
+            }
+            if (length == 0) {
+                out.add(heartbeat);
+                continue;
+            }
+            if (in.readableBytes() < length) {
+                in.readerIndex(preIndex);
+                return;
+            }
+            out.add(in.readSlice(length).retain());
+        }
+    }
+
+    /**
+     * 读取 varint32，数据不完整时恢复 readerIndex 并返回 0
+     */
+    private static int readRawVarint32(ByteBuf buffer) {
+        int startIndex = buffer.readerIndex();
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!buffer.isReadable()) {
+                buffer.readerIndex(startIndex);
+                return 0;
+            }
+            byte b = buffer.readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new CorruptedFrameException("malformed varint.");
+    }
+}
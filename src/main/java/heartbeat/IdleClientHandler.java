@@ -12,14 +12,9 @@ import protobuf.Message;
 public class IdleClientHandler extends SimpleChannelInboundHandler<Message> {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private NettyClient nettyClient;
     private int heartbeatCount = 0;
     private final static String CLIENT_ID = "123456789";
 
-    public IdleClientHandler(NettyClient nettyClient) {
-        this.nettyClient = nettyClient;
-    }
-
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent) {
@@ -54,15 +49,6 @@ public class IdleClientHandler extends SimpleChannelInboundHandler<Message> {
         logger.info("Client sent ping msg to " + context.channel().remoteAddress() + ", count: " + heartbeatCount);
     }
 
-    /**
-     * 处理断开重连
-     */
-    @Override
-    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        super.channelInactive(ctx);
-        nettyClient.doConnect();
-    }
-
     @Override
     protected void messageReceived(ChannelHandlerContext ctx, Message msg) throws Exception {
 
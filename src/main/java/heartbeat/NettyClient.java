@@ -6,108 +6,75 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.Reconnector;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.concurrent.TimeUnit;
+import java.net.InetSocketAddress;
 
 /**
  * Netty 客户端
+ * 断线后由 {@link Reconnector} 按带随机抖动的指数退避重连，控制台输入在 main 线程中读取
  */
 public class NettyClient {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final static String HOST = "127.0.0.1";
     private final static int PORT = 8899;
+    private final static long RECONNECT_BASE_MILLIS = 1000;  // 重连最短等待 1 秒
+    private final static long RECONNECT_CAP_MILLIS = 60000;  // 重连最长等待 60 秒
 
     private NioEventLoopGroup workerGroup = new NioEventLoopGroup(4);
     private Bootstrap b;
-    private Channel channel;
-    // 重试次数
-    private int tryTimes = 0;
+    private Reconnector reconnector;
 
     public static void main(String[] args) {
-        // 配置客户端NIO线程组
-        EventLoopGroup group = new NioEventLoopGroup();
+        NettyClient client = new NettyClient();
+        client.connect();
         try {
-            Bootstrap bootstrap = new Bootstrap();
-            bootstrap.group(group).channel(NioSocketChannel.class)
-                    .handler(new NettyClientInitializer())
-                    .option(ChannelOption.TCP_NODELAY, true);
-
-            // 发起异步连接操作
-            ChannelFuture f = bootstrap.connect(HOST, PORT).sync();
-            Channel channel = f.channel();
-
             // 标准输入
             BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(System.in));
-            // 利用死循环，不断读取客户端在控制台上的输入内容
-            while (true) {
-                // 将读取的输入写入outbundle处理后发出
-                channel.writeAndFlush(bufferedReader.readLine() + "\r\n").sync();
+            // 利用死循环，不断读取客户端在控制台上的输入内容，断线期间的输入直接丢弃
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                Channel channel = client.reconnector.channel();
+                if (channel != null && channel.isActive()) {
+                    // 将读取的输入写入outbundle处理后发出
+                    channel.writeAndFlush(line + "\r\n");
+                } else {
+                    client.logger.warn("Not connected, drop input");
+                }
             }
-
-            // 当代客户端链路关闭，服务器同步连接断开时,这句代码才会往下执行
-            // 也就是服务端执行完这一句: ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
-            //channel.closeFuture().sync();
-        } catch (InterruptedException | IOException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         } finally {
             // 优雅退出，释放NIO线程组
-            group.shutdownGracefully();
+            client.close();
         }
     }
 
-    public void connect() throws Exception {
-        try {
-            b = new Bootstrap();
-            b.group(workerGroup);
-            b.channel(NioSocketChannel.class);
-            b.handler(new NettyClientInitializer());
-            b.option(ChannelOption.SO_KEEPALIVE, true);
-            doConnect();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    public void connect() {
+        b = new Bootstrap();
+        b.group(workerGroup);
+        b.channel(NioSocketChannel.class);
+        b.handler(new NettyClientInitializer());
+        b.option(ChannelOption.SO_KEEPALIVE, true);
+        b.option(ChannelOption.TCP_NODELAY, true);
+        reconnector = new Reconnector(b, workerGroup.next(), InetSocketAddress.createUnresolved(HOST, PORT),
+                RECONNECT_BASE_MILLIS, RECONNECT_CAP_MILLIS);
+        reconnector.start();
     }
 
     /**
-     * 重连，连接失败 10 秒后重试连接
+     * 断线重连，已有连接或连接尝试时直接返回，不阻塞调用线程
      */
-    public void doConnect() throws IOException {
-        if (channel != null && channel.isActive()) {
-            return;
-        }
-        tryTimes++;
-        logger.info("" + tryTimes);
-        ChannelFuture future = b.connect(HOST, PORT);
-
-        future.addListener(new ChannelFutureListener() {
-            public void operationComplete(ChannelFuture futureListener) throws Exception {
-                if (futureListener.isSuccess()) {
-                    channel = futureListener.channel();
-                    channel.closeFuture();
-                    workerGroup.shutdownGracefully();
-                    logger.info("Connect to server successfully!");
-                } else {
-                    logger.warn("Failed to connect to server, try connect after 10s");
-                    futureListener.channel().eventLoop().schedule(() -> {
-                        try {
-                            doConnect();
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    }, 10, TimeUnit.SECONDS);
-                }
-            }
-        });
+    public void doConnect() {
+        reconnector.reconnect();
+    }
 
-        // 标准输入
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(System.in));
-        // 利用死循环，不断读取客户端在控制台上的输入内容
-        for (; ; ) {
-            channel.writeAndFlush(bufferedReader.readLine() + "\r\n");
-        }
+    public void close() {
+        reconnector.stop();
+        workerGroup.shutdownGracefully();
     }
-}
\ No newline at end of file
+}
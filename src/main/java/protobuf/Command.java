@@ -69,6 +69,42 @@ public final class Command {
      * <code>PUSH_DATA = 5;</code>
      */
     PUSH_DATA(5),
+    /**
+     * <pre>
+     **
+     * 批量上传数据，条目放在 MessageBase.batch 中
+     * </pre>
+     *
+     * <code>UPLOAD_BATCH = 6;</code>
+     */
+    UPLOAD_BATCH(6),
+    /**
+     * <pre>
+     **
+     * 服务端即将下线，要求客户端在 retryAfterMillis 后重连；data 不为空时为建议重连的地址 host:port
+     * </pre>
+     *
+     * <code>RECONNECT = 7;</code>
+     */
+    RECONNECT(7),
+    /**
+     * <pre>
+     **
+     * 在已认证的多路复用连接上挂载逻辑 clientId：batch 为空时挂载 clientId，否则挂载 batch 中每个条目的 clientId
+     * </pre>
+     *
+     * <code>ATTACH = 8;</code>
+     */
+    ATTACH(8),
+    /**
+     * <pre>
+     **
+     * 解除逻辑 clientId，格式同 ATTACH；客户端发送表示设备下线，服务端发送表示挂载被拒绝或已被其它连接接管
+     * </pre>
+     *
+     * <code>DETACH = 9;</code>
+     */
+    DETACH(9),
     /**
      * <pre>
      **
@@ -86,6 +122,24 @@ public final class Command {
      * <code>PUSH_DATA_BACK = 15;</code>
      */
     PUSH_DATA_BACK(15),
+    /**
+     * <pre>
+     **
+     * 批量上传的累计确认，data 为确认的条目数
+     * </pre>
+     *
+     * <code>UPLOAD_BATCH_BACK = 16;</code>
+     */
+    UPLOAD_BATCH_BACK(16),
+    /**
+     * <pre>
+     **
+     * 挂载结果，batch 中为挂载成功的 clientId
+     * </pre>
+     *
+     * <code>ATTACH_BACK = 18;</code>
+     */
+    ATTACH_BACK(18),
     ;
 
     /**
@@ -133,6 +187,42 @@ public final class Command {
      * <code>PUSH_DATA = 5;</code>
      */
     public static final int PUSH_DATA_VALUE = 5;
+    /**
+     * <pre>
+     **
+     * 批量上传数据，条目放在 MessageBase.batch 中
+     * </pre>
+     *
+     * <code>UPLOAD_BATCH = 6;</code>
+     */
+    public static final int UPLOAD_BATCH_VALUE = 6;
+    /**
+     * <pre>
+     **
+     * 服务端即将下线，要求客户端在 retryAfterMillis 后重连；data 不为空时为建议重连的地址 host:port
+     * </pre>
+     *
+     * <code>RECONNECT = 7;</code>
+     */
+    public static final int RECONNECT_VALUE = 7;
+    /**
+     * <pre>
+     **
+     * 在已认证的多路复用连接上挂载逻辑 clientId：batch 为空时挂载 clientId，否则挂载 batch 中每个条目的 clientId
+     * </pre>
+     *
+     * <code>ATTACH = 8;</code>
+     */
+    public static final int ATTACH_VALUE = 8;
+    /**
+     * <pre>
+     **
+     * 解除逻辑 clientId，格式同 ATTACH；客户端发送表示设备下线，服务端发送表示挂载被拒绝或已被其它连接接管
+     * </pre>
+     *
+     * <code>DETACH = 9;</code>
+     */
+    public static final int DETACH_VALUE = 9;
     /**
      * <pre>
      **
@@ -150,6 +240,24 @@ public final class Command {
      * <code>PUSH_DATA_BACK = 15;</code>
      */
     public static final int PUSH_DATA_BACK_VALUE = 15;
+    /**
+     * <pre>
+     **
+     * 批量上传的累计确认，data 为确认的条目数
+     * </pre>
+     *
+     * <code>UPLOAD_BATCH_BACK = 16;</code>
+     */
+    public static final int UPLOAD_BATCH_BACK_VALUE = 16;
+    /**
+     * <pre>
+     **
+     * 挂载结果，batch 中为挂载成功的 clientId
+     * </pre>
+     *
+     * <code>ATTACH_BACK = 18;</code>
+     */
+    public static final int ATTACH_BACK_VALUE = 18;
 
 
     public final int getNumber() {
@@ -159,7 +267,7 @@ public final class Command {
     /**
      * @deprecated Use {@link #forNumber(int)} instead.
      */
-    @Deprecated
+    @java.lang.Deprecated
     public static CommandType valueOf(int value) {
       return forNumber(value);
     }
@@ -171,9 +279,15 @@ public final class Command {
         case 3: return PONG;
         case 4: return UPLOAD_DATA;
         case 5: return PUSH_DATA;
+        case 6: return UPLOAD_BATCH;
+        case 7: return RECONNECT;
+        case 8: return ATTACH;
+        case 9: return DETACH;
         case 11: return AUTH_BACK;
         case 14: return UPLOAD_DATA_BACK;
         case 15: return PUSH_DATA_BACK;
+        case 16: return UPLOAD_BATCH_BACK;
+        case 18: return ATTACH_BACK;
         default: return null;
       }
     }
@@ -200,7 +314,7 @@ public final class Command {
     }
     public static final com.google.protobuf.Descriptors.EnumDescriptor
         getDescriptor() {
-      return Command.getDescriptor().getEnumTypes().get(0);
+      return protobuf.Command.getDescriptor().getEnumTypes().get(0);
     }
 
     private static final CommandType[] VALUES = values();
@@ -208,7 +322,7 @@ public final class Command {
     public static CommandType valueOf(
         com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
       if (desc.getType() != getDescriptor()) {
-        throw new IllegalArgumentException(
+        throw new java.lang.IllegalArgumentException(
           "EnumValueDescriptor is not for this type.");
       }
       return VALUES[desc.getIndex()];
@@ -231,12 +345,14 @@ public final class Command {
   private static  com.google.protobuf.Descriptors.FileDescriptor
       descriptor;
   static {
-    String[] descriptorData = {
-      "\n\rCommand.proto*\204\001\n\013CommandType\022\010\n\004AUTH\020" +
+    java.lang.String[] descriptorData = {
+      "\n\rCommand.proto*\345\001\n\013CommandType\022\010\n\004AUTH\020" +
       "\001\022\010\n\004PING\020\002\022\010\n\004PONG\020\003\022\017\n\013UPLOAD_DATA\020\004\022\r" +
-      "\n\tPUSH_DATA\020\005\022\r\n\tAUTH_BACK\020\013\022\024\n\020UPLOAD_D" +
-      "ATA_BACK\020\016\022\022\n\016PUSH_DATA_BACK\020\017B\023\n\010protob" +
-      "ufB\007Command"
+      "\n\tPUSH_DATA\020\005\022\020\n\014UPLOAD_BATCH\020\006\022\r\n\tRECON" +
+      "NECT\020\007\022\n\n\006ATTACH\020\010\022\n\n\006DETACH\020\t\022\r\n\tAUTH_B" +
+      "ACK\020\013\022\024\n\020UPLOAD_DATA_BACK\020\016\022\022\n\016PUSH_DATA" +
+      "_BACK\020\017\022\025\n\021UPLOAD_BATCH_BACK\020\020\022\017\n\013ATTACH" +
+      "_BACK\020\022B\023\n\010protobufB\007Command"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
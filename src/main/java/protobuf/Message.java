@@ -25,7 +25,7 @@ public final class Message {
     /**
      * <code>required string clientId = 1;</code>
      */
-    String getClientId();
+    java.lang.String getClientId();
     /**
      * <code>required string clientId = 1;</code>
      */
@@ -39,7 +39,7 @@ public final class Message {
     /**
      * <code>required .CommandType cmd = 2;</code>
      */
-    Command.CommandType getCmd();
+    protobuf.Command.CommandType getCmd();
 
     /**
      * <code>optional string data = 3;</code>
@@ -48,12 +48,277 @@ public final class Message {
     /**
      * <code>optional string data = 3;</code>
      */
-    String getData();
+    java.lang.String getData();
     /**
      * <code>optional string data = 3;</code>
      */
     com.google.protobuf.ByteString
         getDataBytes();
+
+    /**
+     * <pre>
+     **
+     * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+     * 1: 紧凑心跳帧
+     * 2: 带预置字典的 deflate 帧压缩
+     * 4: 多路复用，一个连接挂载多个逻辑 clientId
+     * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+     * </pre>
+     *
+     * <code>optional uint32 features = 4;</code>
+     */
+    boolean hasFeatures();
+    /**
+     * <pre>
+     **
+     * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+     * 1: 紧凑心跳帧
+     * 2: 带预置字典的 deflate 帧压缩
+     * 4: 多路复用，一个连接挂载多个逻辑 clientId
+     * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+     * </pre>
+     *
+     * <code>optional uint32 features = 4;</code>
+     */
+    int getFeatures();
+
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    java.util.List<protobuf.Message.MessageBase> 
+        getBatchList();
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    protobuf.Message.MessageBase getBatch(int index);
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    int getBatchCount();
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    java.util.List<? extends protobuf.Message.MessageBaseOrBuilder> 
+        getBatchOrBuilderList();
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    protobuf.Message.MessageBaseOrBuilder getBatchOrBuilder(
+        int index);
+
+    /**
+     * <pre>
+     **
+     * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+     * </pre>
+     *
+     * <code>optional bytes dictionary = 6;</code>
+     */
+    boolean hasDictionary();
+    /**
+     * <pre>
+     **
+     * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+     * </pre>
+     *
+     * <code>optional bytes dictionary = 6;</code>
+     */
+    com.google.protobuf.ByteString getDictionary();
+
+    /**
+     * <pre>
+     **
+     * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+     * </pre>
+     *
+     * <code>optional uint32 retryAfterMillis = 7;</code>
+     */
+    boolean hasRetryAfterMillis();
+    /**
+     * <pre>
+     **
+     * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+     * </pre>
+     *
+     * <code>optional uint32 retryAfterMillis = 7;</code>
+     */
+    int getRetryAfterMillis();
+
+    /**
+     * <pre>
+     **
+     * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+     * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+     * </pre>
+     *
+     * <code>optional fixed64 timestamp = 8;</code>
+     */
+    boolean hasTimestamp();
+    /**
+     * <pre>
+     **
+     * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+     * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+     * </pre>
+     *
+     * <code>optional fixed64 timestamp = 8;</code>
+     */
+    long getTimestamp();
+
+    /**
+     * <pre>
+     **
+     * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+     * </pre>
+     *
+     * <code>optional uint32 rttMicros = 9;</code>
+     */
+    boolean hasRttMicros();
+    /**
+     * <pre>
+     **
+     * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+     * </pre>
+     *
+     * <code>optional uint32 rttMicros = 9;</code>
+     */
+    int getRttMicros();
+
+    /**
+     * <pre>
+     **
+     * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+     * </pre>
+     *
+     * <code>optional string group = 10;</code>
+     */
+    boolean hasGroup();
+    /**
+     * <pre>
+     **
+     * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+     * </pre>
+     *
+     * <code>optional string group = 10;</code>
+     */
+    java.lang.String getGroup();
+    /**
+     * <pre>
+     **
+     * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+     * </pre>
+     *
+     * <code>optional string group = 10;</code>
+     */
+    com.google.protobuf.ByteString
+        getGroupBytes();
+
+    /**
+     * <pre>
+     **
+     * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+     * </pre>
+     *
+     * <code>optional uint32 heartbeatSeconds = 11;</code>
+     */
+    boolean hasHeartbeatSeconds();
+    /**
+     * <pre>
+     **
+     * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+     * </pre>
+     *
+     * <code>optional uint32 heartbeatSeconds = 11;</code>
+     */
+    int getHeartbeatSeconds();
+
+    /**
+     * <pre>
+     **
+     * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+     * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+     * </pre>
+     *
+     * <code>optional uint32 correlationId = 12;</code>
+     */
+    boolean hasCorrelationId();
+    /**
+     * <pre>
+     **
+     * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+     * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+     * </pre>
+     *
+     * <code>optional uint32 correlationId = 12;</code>
+     */
+    int getCorrelationId();
+
+    /**
+     * <pre>
+     **
+     * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+     * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+     * </pre>
+     *
+     * <code>optional uint64 seq = 13;</code>
+     */
+    boolean hasSeq();
+    /**
+     * <pre>
+     **
+     * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+     * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+     * </pre>
+     *
+     * <code>optional uint64 seq = 13;</code>
+     */
+    long getSeq();
+
+    /**
+     * <pre>
+     **
+     * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+     * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+     * </pre>
+     *
+     * <code>optional uint64 ack = 14;</code>
+     */
+    boolean hasAck();
+    /**
+     * <pre>
+     **
+     * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+     * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+     * </pre>
+     *
+     * <code>optional uint64 ack = 14;</code>
+     */
+    long getAck();
   }
   /**
    * Protobuf type {@code MessageBase}
@@ -71,9 +336,20 @@ public final class Message {
       clientId_ = "";
       cmd_ = 1;
       data_ = "";
+      features_ = 0;
+      batch_ = java.util.Collections.emptyList();
+      dictionary_ = com.google.protobuf.ByteString.EMPTY;
+      retryAfterMillis_ = 0;
+      timestamp_ = 0L;
+      rttMicros_ = 0;
+      group_ = "";
+      heartbeatSeconds_ = 0;
+      correlationId_ = 0;
+      seq_ = 0L;
+      ack_ = 0L;
     }
 
-    @Override
+    @java.lang.Override
     public final com.google.protobuf.UnknownFieldSet
     getUnknownFields() {
       return this.unknownFields;
@@ -109,7 +385,7 @@ public final class Message {
             }
             case 16: {
               int rawValue = input.readEnum();
-              Command.CommandType value = Command.CommandType.valueOf(rawValue);
+              protobuf.Command.CommandType value = protobuf.Command.CommandType.valueOf(rawValue);
               if (value == null) {
                 unknownFields.mergeVarintField(2, rawValue);
               } else {
@@ -124,6 +400,66 @@ public final class Message {
               data_ = bs;
               break;
             }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              features_ = input.readUInt32();
+              break;
+            }
+            case 42: {
+              if (!((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+                batch_ = new java.util.ArrayList<protobuf.Message.MessageBase>();
+                mutable_bitField0_ |= 0x00000010;
+              }
+              batch_.add(
+                  input.readMessage(protobuf.Message.MessageBase.PARSER, extensionRegistry));
+              break;
+            }
+            case 50: {
+              bitField0_ |= 0x00000010;
+              dictionary_ = input.readBytes();
+              break;
+            }
+            case 56: {
+              bitField0_ |= 0x00000020;
+              retryAfterMillis_ = input.readUInt32();
+              break;
+            }
+            case 65: {
+              bitField0_ |= 0x00000040;
+              timestamp_ = input.readFixed64();
+              break;
+            }
+            case 72: {
+              bitField0_ |= 0x00000080;
+              rttMicros_ = input.readUInt32();
+              break;
+            }
+            case 82: {
+              com.google.protobuf.ByteString bs = input.readBytes();
+              bitField0_ |= 0x00000100;
+              group_ = bs;
+              break;
+            }
+            case 88: {
+              bitField0_ |= 0x00000200;
+              heartbeatSeconds_ = input.readUInt32();
+              break;
+            }
+            case 96: {
+              bitField0_ |= 0x00000400;
+              correlationId_ = input.readUInt32();
+              break;
+            }
+            case 104: {
+              bitField0_ |= 0x00000800;
+              seq_ = input.readUInt64();
+              break;
+            }
+            case 112: {
+              bitField0_ |= 0x00001000;
+              ack_ = input.readUInt64();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -132,25 +468,28 @@ public final class Message {
         throw new com.google.protobuf.InvalidProtocolBufferException(
             e).setUnfinishedMessage(this);
       } finally {
+        if (((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+          batch_ = java.util.Collections.unmodifiableList(batch_);
+        }
         this.unknownFields = unknownFields.build();
         makeExtensionsImmutable();
       }
     }
     public static final com.google.protobuf.Descriptors.Descriptor
         getDescriptor() {
-      return Message.internal_static_MessageBase_descriptor;
+      return protobuf.Message.internal_static_MessageBase_descriptor;
     }
 
-    protected FieldAccessorTable
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
         internalGetFieldAccessorTable() {
-      return Message.internal_static_MessageBase_fieldAccessorTable
+      return protobuf.Message.internal_static_MessageBase_fieldAccessorTable
           .ensureFieldAccessorsInitialized(
-              Message.MessageBase.class, Message.MessageBase.Builder.class);
+              protobuf.Message.MessageBase.class, protobuf.Message.MessageBase.Builder.class);
     }
 
     private int bitField0_;
     public static final int CLIENTID_FIELD_NUMBER = 1;
-    private volatile Object clientId_;
+    private volatile java.lang.Object clientId_;
     /**
      * <code>required string clientId = 1;</code>
      */
@@ -160,14 +499,14 @@ public final class Message {
     /**
      * <code>required string clientId = 1;</code>
      */
-    public String getClientId() {
-      Object ref = clientId_;
-      if (ref instanceof String) {
-        return (String) ref;
+    public java.lang.String getClientId() {
+      java.lang.Object ref = clientId_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
       } else {
-        com.google.protobuf.ByteString bs =
+        com.google.protobuf.ByteString bs = 
             (com.google.protobuf.ByteString) ref;
-        String s = bs.toStringUtf8();
+        java.lang.String s = bs.toStringUtf8();
         if (bs.isValidUtf8()) {
           clientId_ = s;
         }
@@ -179,11 +518,11 @@ public final class Message {
      */
     public com.google.protobuf.ByteString
         getClientIdBytes() {
-      Object ref = clientId_;
-      if (ref instanceof String) {
-        com.google.protobuf.ByteString b =
+      java.lang.Object ref = clientId_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
             com.google.protobuf.ByteString.copyFromUtf8(
-                (String) ref);
+                (java.lang.String) ref);
         clientId_ = b;
         return b;
       } else {
@@ -202,13 +541,13 @@ public final class Message {
     /**
      * <code>required .CommandType cmd = 2;</code>
      */
-    public Command.CommandType getCmd() {
-      Command.CommandType result = Command.CommandType.valueOf(cmd_);
-      return result == null ? Command.CommandType.AUTH : result;
+    public protobuf.Command.CommandType getCmd() {
+      protobuf.Command.CommandType result = protobuf.Command.CommandType.valueOf(cmd_);
+      return result == null ? protobuf.Command.CommandType.AUTH : result;
     }
 
     public static final int DATA_FIELD_NUMBER = 3;
-    private volatile Object data_;
+    private volatile java.lang.Object data_;
     /**
      * <code>optional string data = 3;</code>
      */
@@ -218,14 +557,14 @@ public final class Message {
     /**
      * <code>optional string data = 3;</code>
      */
-    public String getData() {
-      Object ref = data_;
-      if (ref instanceof String) {
-        return (String) ref;
+    public java.lang.String getData() {
+      java.lang.Object ref = data_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
       } else {
-        com.google.protobuf.ByteString bs =
+        com.google.protobuf.ByteString bs = 
             (com.google.protobuf.ByteString) ref;
-        String s = bs.toStringUtf8();
+        java.lang.String s = bs.toStringUtf8();
         if (bs.isValidUtf8()) {
           data_ = s;
         }
@@ -237,11 +576,11 @@ public final class Message {
      */
     public com.google.protobuf.ByteString
         getDataBytes() {
-      Object ref = data_;
-      if (ref instanceof String) {
-        com.google.protobuf.ByteString b =
+      java.lang.Object ref = data_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
             com.google.protobuf.ByteString.copyFromUtf8(
-                (String) ref);
+                (java.lang.String) ref);
         data_ = b;
         return b;
       } else {
@@ -249,6 +588,364 @@ public final class Message {
       }
     }
 
+    public static final int FEATURES_FIELD_NUMBER = 4;
+    private int features_;
+    /**
+     * <pre>
+     **
+     * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+     * 1: 紧凑心跳帧
+     * 2: 带预置字典的 deflate 帧压缩
+     * 4: 多路复用，一个连接挂载多个逻辑 clientId
+     * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+     * </pre>
+     *
+     * <code>optional uint32 features = 4;</code>
+     */
+    public boolean hasFeatures() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <pre>
+     **
+     * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+     * 1: 紧凑心跳帧
+     * 2: 带预置字典的 deflate 帧压缩
+     * 4: 多路复用，一个连接挂载多个逻辑 clientId
+     * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+     * </pre>
+     *
+     * <code>optional uint32 features = 4;</code>
+     */
+    public int getFeatures() {
+      return features_;
+    }
+
+    public static final int BATCH_FIELD_NUMBER = 5;
+    private java.util.List<protobuf.Message.MessageBase> batch_;
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    public java.util.List<protobuf.Message.MessageBase> getBatchList() {
+      return batch_;
+    }
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    public java.util.List<? extends protobuf.Message.MessageBaseOrBuilder> 
+        getBatchOrBuilderList() {
+      return batch_;
+    }
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    public int getBatchCount() {
+      return batch_.size();
+    }
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    public protobuf.Message.MessageBase getBatch(int index) {
+      return batch_.get(index);
+    }
+    /**
+     * <pre>
+     **
+     * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+     * </pre>
+     *
+     * <code>repeated .MessageBase batch = 5;</code>
+     */
+    public protobuf.Message.MessageBaseOrBuilder getBatchOrBuilder(
+        int index) {
+      return batch_.get(index);
+    }
+
+    public static final int DICTIONARY_FIELD_NUMBER = 6;
+    private com.google.protobuf.ByteString dictionary_;
+    /**
+     * <pre>
+     **
+     * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+     * </pre>
+     *
+     * <code>optional bytes dictionary = 6;</code>
+     */
+    public boolean hasDictionary() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    /**
+     * <pre>
+     **
+     * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+     * </pre>
+     *
+     * <code>optional bytes dictionary = 6;</code>
+     */
+    public com.google.protobuf.ByteString getDictionary() {
+      return dictionary_;
+    }
+
+    public static final int RETRYAFTERMILLIS_FIELD_NUMBER = 7;
+    private int retryAfterMillis_;
+    /**
+     * <pre>
+     **
+     * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+     * </pre>
+     *
+     * <code>optional uint32 retryAfterMillis = 7;</code>
+     */
+    public boolean hasRetryAfterMillis() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+    /**
+     * <pre>
+     **
+     * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+     * </pre>
+     *
+     * <code>optional uint32 retryAfterMillis = 7;</code>
+     */
+    public int getRetryAfterMillis() {
+      return retryAfterMillis_;
+    }
+
+    public static final int TIMESTAMP_FIELD_NUMBER = 8;
+    private long timestamp_;
+    /**
+     * <pre>
+     **
+     * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+     * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+     * </pre>
+     *
+     * <code>optional fixed64 timestamp = 8;</code>
+     */
+    public boolean hasTimestamp() {
+      return ((bitField0_ & 0x00000040) == 0x00000040);
+    }
+    /**
+     * <pre>
+     **
+     * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+     * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+     * </pre>
+     *
+     * <code>optional fixed64 timestamp = 8;</code>
+     */
+    public long getTimestamp() {
+      return timestamp_;
+    }
+
+    public static final int RTTMICROS_FIELD_NUMBER = 9;
+    private int rttMicros_;
+    /**
+     * <pre>
+     **
+     * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+     * </pre>
+     *
+     * <code>optional uint32 rttMicros = 9;</code>
+     */
+    public boolean hasRttMicros() {
+      return ((bitField0_ & 0x00000080) == 0x00000080);
+    }
+    /**
+     * <pre>
+     **
+     * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+     * </pre>
+     *
+     * <code>optional uint32 rttMicros = 9;</code>
+     */
+    public int getRttMicros() {
+      return rttMicros_;
+    }
+
+    public static final int GROUP_FIELD_NUMBER = 10;
+    private volatile java.lang.Object group_;
+    /**
+     * <pre>
+     **
+     * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+     * </pre>
+     *
+     * <code>optional string group = 10;</code>
+     */
+    public boolean hasGroup() {
+      return ((bitField0_ & 0x00000100) == 0x00000100);
+    }
+    /**
+     * <pre>
+     **
+     * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+     * </pre>
+     *
+     * <code>optional string group = 10;</code>
+     */
+    public java.lang.String getGroup() {
+      java.lang.Object ref = group_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          group_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <pre>
+     **
+     * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+     * </pre>
+     *
+     * <code>optional string group = 10;</code>
+     */
+    public com.google.protobuf.ByteString
+        getGroupBytes() {
+      java.lang.Object ref = group_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        group_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int HEARTBEATSECONDS_FIELD_NUMBER = 11;
+    private int heartbeatSeconds_;
+    /**
+     * <pre>
+     **
+     * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+     * </pre>
+     *
+     * <code>optional uint32 heartbeatSeconds = 11;</code>
+     */
+    public boolean hasHeartbeatSeconds() {
+      return ((bitField0_ & 0x00000200) == 0x00000200);
+    }
+    /**
+     * <pre>
+     **
+     * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+     * </pre>
+     *
+     * <code>optional uint32 heartbeatSeconds = 11;</code>
+     */
+    public int getHeartbeatSeconds() {
+      return heartbeatSeconds_;
+    }
+
+    public static final int CORRELATIONID_FIELD_NUMBER = 12;
+    private int correlationId_;
+    /**
+     * <pre>
+     **
+     * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+     * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+     * </pre>
+     *
+     * <code>optional uint32 correlationId = 12;</code>
+     */
+    public boolean hasCorrelationId() {
+      return ((bitField0_ & 0x00000400) == 0x00000400);
+    }
+    /**
+     * <pre>
+     **
+     * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+     * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+     * </pre>
+     *
+     * <code>optional uint32 correlationId = 12;</code>
+     */
+    public int getCorrelationId() {
+      return correlationId_;
+    }
+
+    public static final int SEQ_FIELD_NUMBER = 13;
+    private long seq_;
+    /**
+     * <pre>
+     **
+     * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+     * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+     * </pre>
+     *
+     * <code>optional uint64 seq = 13;</code>
+     */
+    public boolean hasSeq() {
+      return ((bitField0_ & 0x00000800) == 0x00000800);
+    }
+    /**
+     * <pre>
+     **
+     * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+     * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+     * </pre>
+     *
+     * <code>optional uint64 seq = 13;</code>
+     */
+    public long getSeq() {
+      return seq_;
+    }
+
+    public static final int ACK_FIELD_NUMBER = 14;
+    private long ack_;
+    /**
+     * <pre>
+     **
+     * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+     * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+     * </pre>
+     *
+     * <code>optional uint64 ack = 14;</code>
+     */
+    public boolean hasAck() {
+      return ((bitField0_ & 0x00001000) == 0x00001000);
+    }
+    /**
+     * <pre>
+     **
+     * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+     * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+     * </pre>
+     *
+     * <code>optional uint64 ack = 14;</code>
+     */
+    public long getAck() {
+      return ack_;
+    }
+
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
       byte isInitialized = memoizedIsInitialized;
@@ -263,6 +960,12 @@ public final class Message {
         memoizedIsInitialized = 0;
         return false;
       }
+      for (int i = 0; i < getBatchCount(); i++) {
+        if (!getBatch(i).isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
       memoizedIsInitialized = 1;
       return true;
     }
@@ -278,6 +981,39 @@ public final class Message {
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
         com.google.protobuf.GeneratedMessageV3.writeString(output, 3, data_);
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeUInt32(4, features_);
+      }
+      for (int i = 0; i < batch_.size(); i++) {
+        output.writeMessage(5, batch_.get(i));
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeBytes(6, dictionary_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeUInt32(7, retryAfterMillis_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        output.writeFixed64(8, timestamp_);
+      }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        output.writeUInt32(9, rttMicros_);
+      }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 10, group_);
+      }
+      if (((bitField0_ & 0x00000200) == 0x00000200)) {
+        output.writeUInt32(11, heartbeatSeconds_);
+      }
+      if (((bitField0_ & 0x00000400) == 0x00000400)) {
+        output.writeUInt32(12, correlationId_);
+      }
+      if (((bitField0_ & 0x00000800) == 0x00000800)) {
+        output.writeUInt64(13, seq_);
+      }
+      if (((bitField0_ & 0x00001000) == 0x00001000)) {
+        output.writeUInt64(14, ack_);
+      }
       unknownFields.writeTo(output);
     }
 
@@ -296,20 +1032,63 @@ public final class Message {
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
         size += com.google.protobuf.GeneratedMessageV3.computeStringSize(3, data_);
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(4, features_);
+      }
+      for (int i = 0; i < batch_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(5, batch_.get(i));
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(6, dictionary_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(7, retryAfterMillis_);
+      }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeFixed64Size(8, timestamp_);
+      }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(9, rttMicros_);
+      }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(10, group_);
+      }
+      if (((bitField0_ & 0x00000200) == 0x00000200)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(11, heartbeatSeconds_);
+      }
+      if (((bitField0_ & 0x00000400) == 0x00000400)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(12, correlationId_);
+      }
+      if (((bitField0_ & 0x00000800) == 0x00000800)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(13, seq_);
+      }
+      if (((bitField0_ & 0x00001000) == 0x00001000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(14, ack_);
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
     }
 
-    @Override
-    public boolean equals(final Object obj) {
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
       if (obj == this) {
        return true;
       }
-      if (!(obj instanceof Message.MessageBase)) {
+      if (!(obj instanceof protobuf.Message.MessageBase)) {
         return super.equals(obj);
       }
-      Message.MessageBase other = (Message.MessageBase) obj;
+      protobuf.Message.MessageBase other = (protobuf.Message.MessageBase) obj;
 
       boolean result = true;
       result = result && (hasClientId() == other.hasClientId());
@@ -326,11 +1105,63 @@ public final class Message {
         result = result && getData()
             .equals(other.getData());
       }
+      result = result && (hasFeatures() == other.hasFeatures());
+      if (hasFeatures()) {
+        result = result && (getFeatures()
+            == other.getFeatures());
+      }
+      result = result && getBatchList()
+          .equals(other.getBatchList());
+      result = result && (hasDictionary() == other.hasDictionary());
+      if (hasDictionary()) {
+        result = result && getDictionary()
+            .equals(other.getDictionary());
+      }
+      result = result && (hasRetryAfterMillis() == other.hasRetryAfterMillis());
+      if (hasRetryAfterMillis()) {
+        result = result && (getRetryAfterMillis()
+            == other.getRetryAfterMillis());
+      }
+      result = result && (hasTimestamp() == other.hasTimestamp());
+      if (hasTimestamp()) {
+        result = result && (getTimestamp()
+            == other.getTimestamp());
+      }
+      result = result && (hasRttMicros() == other.hasRttMicros());
+      if (hasRttMicros()) {
+        result = result && (getRttMicros()
+            == other.getRttMicros());
+      }
+      result = result && (hasGroup() == other.hasGroup());
+      if (hasGroup()) {
+        result = result && getGroup()
+            .equals(other.getGroup());
+      }
+      result = result && (hasHeartbeatSeconds() == other.hasHeartbeatSeconds());
+      if (hasHeartbeatSeconds()) {
+        result = result && (getHeartbeatSeconds()
+            == other.getHeartbeatSeconds());
+      }
+      result = result && (hasCorrelationId() == other.hasCorrelationId());
+      if (hasCorrelationId()) {
+        result = result && (getCorrelationId()
+            == other.getCorrelationId());
+      }
+      result = result && (hasSeq() == other.hasSeq());
+      if (hasSeq()) {
+        result = result && (getSeq()
+            == other.getSeq());
+      }
+      result = result && (hasAck() == other.hasAck());
+      if (hasAck()) {
+        result = result && (getAck()
+            == other.getAck());
+      }
       result = result && unknownFields.equals(other.unknownFields);
       return result;
     }
 
-    @Override
+    @java.lang.Override
     public int hashCode() {
       if (memoizedHashCode != 0) {
         return memoizedHashCode;
@@ -349,74 +1180,121 @@ public final class Message {
         hash = (37 * hash) + DATA_FIELD_NUMBER;
         hash = (53 * hash) + getData().hashCode();
       }
+      if (hasFeatures()) {
+        hash = (37 * hash) + FEATURES_FIELD_NUMBER;
+        hash = (53 * hash) + getFeatures();
+      }
+      if (getBatchCount() > 0) {
+        hash = (37 * hash) + BATCH_FIELD_NUMBER;
+        hash = (53 * hash) + getBatchList().hashCode();
+      }
+      if (hasDictionary()) {
+        hash = (37 * hash) + DICTIONARY_FIELD_NUMBER;
+        hash = (53 * hash) + getDictionary().hashCode();
+      }
+      if (hasRetryAfterMillis()) {
+        hash = (37 * hash) + RETRYAFTERMILLIS_FIELD_NUMBER;
+        hash = (53 * hash) + getRetryAfterMillis();
+      }
+      if (hasTimestamp()) {
+        hash = (37 * hash) + TIMESTAMP_FIELD_NUMBER;
+        hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+            getTimestamp());
+      }
+      if (hasRttMicros()) {
+        hash = (37 * hash) + RTTMICROS_FIELD_NUMBER;
+        hash = (53 * hash) + getRttMicros();
+      }
+      if (hasGroup()) {
+        hash = (37 * hash) + GROUP_FIELD_NUMBER;
+        hash = (53 * hash) + getGroup().hashCode();
+      }
+      if (hasHeartbeatSeconds()) {
+        hash = (37 * hash) + HEARTBEATSECONDS_FIELD_NUMBER;
+        hash = (53 * hash) + getHeartbeatSeconds();
+      }
+      if (hasCorrelationId()) {
+        hash = (37 * hash) + CORRELATIONID_FIELD_NUMBER;
+        hash = (53 * hash) + getCorrelationId();
+      }
+      if (hasSeq()) {
+        hash = (37 * hash) + SEQ_FIELD_NUMBER;
+        hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+            getSeq());
+      }
+      if (hasAck()) {
+        hash = (37 * hash) + ACK_FIELD_NUMBER;
+        hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+            getAck());
+      }
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
     }
 
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         java.nio.ByteBuffer data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data);
     }
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         java.nio.ByteBuffer data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data, extensionRegistry);
     }
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         com.google.protobuf.ByteString data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data);
     }
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         com.google.protobuf.ByteString data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data, extensionRegistry);
     }
-    public static Message.MessageBase parseFrom(byte[] data)
+    public static protobuf.Message.MessageBase parseFrom(byte[] data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data);
     }
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         byte[] data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data, extensionRegistry);
     }
-    public static Message.MessageBase parseFrom(java.io.InputStream input)
+    public static protobuf.Message.MessageBase parseFrom(java.io.InputStream input)
         throws java.io.IOException {
       return com.google.protobuf.GeneratedMessageV3
           .parseWithIOException(PARSER, input);
     }
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
       return com.google.protobuf.GeneratedMessageV3
           .parseWithIOException(PARSER, input, extensionRegistry);
     }
-    public static Message.MessageBase parseDelimitedFrom(java.io.InputStream input)
+    public static protobuf.Message.MessageBase parseDelimitedFrom(java.io.InputStream input)
         throws java.io.IOException {
       return com.google.protobuf.GeneratedMessageV3
           .parseDelimitedWithIOException(PARSER, input);
     }
-    public static Message.MessageBase parseDelimitedFrom(
+    public static protobuf.Message.MessageBase parseDelimitedFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
       return com.google.protobuf.GeneratedMessageV3
           .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
     }
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         com.google.protobuf.CodedInputStream input)
         throws java.io.IOException {
       return com.google.protobuf.GeneratedMessageV3
           .parseWithIOException(PARSER, input);
     }
-    public static Message.MessageBase parseFrom(
+    public static protobuf.Message.MessageBase parseFrom(
         com.google.protobuf.CodedInputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -428,7 +1306,7 @@ public final class Message {
     public static Builder newBuilder() {
       return DEFAULT_INSTANCE.toBuilder();
     }
-    public static Builder newBuilder(Message.MessageBase prototype) {
+    public static Builder newBuilder(protobuf.Message.MessageBase prototype) {
       return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
     }
     public Builder toBuilder() {
@@ -436,9 +1314,9 @@ public final class Message {
           ? new Builder() : new Builder().mergeFrom(this);
     }
 
-    @Override
+    @java.lang.Override
     protected Builder newBuilderForType(
-        BuilderParent parent) {
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
       Builder builder = new Builder(parent);
       return builder;
     }
@@ -448,17 +1326,17 @@ public final class Message {
     public static final class Builder extends
         com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
         // @@protoc_insertion_point(builder_implements:MessageBase)
-        Message.MessageBaseOrBuilder {
+        protobuf.Message.MessageBaseOrBuilder {
       public static final com.google.protobuf.Descriptors.Descriptor
           getDescriptor() {
-        return Message.internal_static_MessageBase_descriptor;
+        return protobuf.Message.internal_static_MessageBase_descriptor;
       }
 
-      protected FieldAccessorTable
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
           internalGetFieldAccessorTable() {
-        return Message.internal_static_MessageBase_fieldAccessorTable
+        return protobuf.Message.internal_static_MessageBase_fieldAccessorTable
             .ensureFieldAccessorsInitialized(
-                Message.MessageBase.class, Message.MessageBase.Builder.class);
+                protobuf.Message.MessageBase.class, protobuf.Message.MessageBase.Builder.class);
       }
 
       // Construct using protobuf.Message.MessageBase.newBuilder()
@@ -467,13 +1345,14 @@ public final class Message {
       }
 
       private Builder(
-          BuilderParent parent) {
+          com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
         super(parent);
         maybeForceBuilderInitialization();
       }
       private void maybeForceBuilderInitialization() {
         if (com.google.protobuf.GeneratedMessageV3
                 .alwaysUseFieldBuilders) {
+          getBatchFieldBuilder();
         }
       }
       public Builder clear() {
@@ -484,28 +1363,54 @@ public final class Message {
         bitField0_ = (bitField0_ & ~0x00000002);
         data_ = "";
         bitField0_ = (bitField0_ & ~0x00000004);
+        features_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        if (batchBuilder_ == null) {
+          batch_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000010);
+        } else {
+          batchBuilder_.clear();
+        }
+        dictionary_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        retryAfterMillis_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000040);
+        timestamp_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000080);
+        rttMicros_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000100);
+        group_ = "";
+        bitField0_ = (bitField0_ & ~0x00000200);
+        heartbeatSeconds_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000400);
+        correlationId_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000800);
+        seq_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00001000);
+        ack_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00002000);
         return this;
       }
 
       public com.google.protobuf.Descriptors.Descriptor
           getDescriptorForType() {
-        return Message.internal_static_MessageBase_descriptor;
+        return protobuf.Message.internal_static_MessageBase_descriptor;
       }
 
-      public Message.MessageBase getDefaultInstanceForType() {
-        return Message.MessageBase.getDefaultInstance();
+      public protobuf.Message.MessageBase getDefaultInstanceForType() {
+        return protobuf.Message.MessageBase.getDefaultInstance();
       }
 
-      public Message.MessageBase build() {
-        Message.MessageBase result = buildPartial();
+      public protobuf.Message.MessageBase build() {
+        protobuf.Message.MessageBase result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(result);
         }
         return result;
       }
 
-      public Message.MessageBase buildPartial() {
-        Message.MessageBase result = new Message.MessageBase(this);
+      public protobuf.Message.MessageBase buildPartial() {
+        protobuf.Message.MessageBase result = new protobuf.Message.MessageBase(this);
         int from_bitField0_ = bitField0_;
         int to_bitField0_ = 0;
         if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
@@ -520,17 +1425,66 @@ public final class Message {
           to_bitField0_ |= 0x00000004;
         }
         result.data_ = data_;
-        result.bitField0_ = to_bitField0_;
-        onBuilt();
-        return result;
-      }
-
-      public Builder clone() {
-        return (Builder) super.clone();
-      }
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.features_ = features_;
+        if (batchBuilder_ == null) {
+          if (((bitField0_ & 0x00000010) == 0x00000010)) {
+            batch_ = java.util.Collections.unmodifiableList(batch_);
+            bitField0_ = (bitField0_ & ~0x00000010);
+          }
+          result.batch_ = batch_;
+        } else {
+          result.batch_ = batchBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.dictionary_ = dictionary_;
+        if (((from_bitField0_ & 0x00000040) == 0x00000040)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        result.retryAfterMillis_ = retryAfterMillis_;
+        if (((from_bitField0_ & 0x00000080) == 0x00000080)) {
+          to_bitField0_ |= 0x00000040;
+        }
+        result.timestamp_ = timestamp_;
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000080;
+        }
+        result.rttMicros_ = rttMicros_;
+        if (((from_bitField0_ & 0x00000200) == 0x00000200)) {
+          to_bitField0_ |= 0x00000100;
+        }
+        result.group_ = group_;
+        if (((from_bitField0_ & 0x00000400) == 0x00000400)) {
+          to_bitField0_ |= 0x00000200;
+        }
+        result.heartbeatSeconds_ = heartbeatSeconds_;
+        if (((from_bitField0_ & 0x00000800) == 0x00000800)) {
+          to_bitField0_ |= 0x00000400;
+        }
+        result.correlationId_ = correlationId_;
+        if (((from_bitField0_ & 0x00001000) == 0x00001000)) {
+          to_bitField0_ |= 0x00000800;
+        }
+        result.seq_ = seq_;
+        if (((from_bitField0_ & 0x00002000) == 0x00002000)) {
+          to_bitField0_ |= 0x00001000;
+        }
+        result.ack_ = ack_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder clone() {
+        return (Builder) super.clone();
+      }
       public Builder setField(
           com.google.protobuf.Descriptors.FieldDescriptor field,
-          Object value) {
+          java.lang.Object value) {
         return (Builder) super.setField(field, value);
       }
       public Builder clearField(
@@ -543,25 +1497,25 @@ public final class Message {
       }
       public Builder setRepeatedField(
           com.google.protobuf.Descriptors.FieldDescriptor field,
-          int index, Object value) {
+          int index, java.lang.Object value) {
         return (Builder) super.setRepeatedField(field, index, value);
       }
       public Builder addRepeatedField(
           com.google.protobuf.Descriptors.FieldDescriptor field,
-          Object value) {
+          java.lang.Object value) {
         return (Builder) super.addRepeatedField(field, value);
       }
       public Builder mergeFrom(com.google.protobuf.Message other) {
-        if (other instanceof Message.MessageBase) {
-          return mergeFrom((Message.MessageBase)other);
+        if (other instanceof protobuf.Message.MessageBase) {
+          return mergeFrom((protobuf.Message.MessageBase)other);
         } else {
           super.mergeFrom(other);
           return this;
         }
       }
 
-      public Builder mergeFrom(Message.MessageBase other) {
-        if (other == Message.MessageBase.getDefaultInstance()) return this;
+      public Builder mergeFrom(protobuf.Message.MessageBase other) {
+        if (other == protobuf.Message.MessageBase.getDefaultInstance()) return this;
         if (other.hasClientId()) {
           bitField0_ |= 0x00000001;
           clientId_ = other.clientId_;
@@ -575,6 +1529,64 @@ public final class Message {
           data_ = other.data_;
           onChanged();
         }
+        if (other.hasFeatures()) {
+          setFeatures(other.getFeatures());
+        }
+        if (batchBuilder_ == null) {
+          if (!other.batch_.isEmpty()) {
+            if (batch_.isEmpty()) {
+              batch_ = other.batch_;
+              bitField0_ = (bitField0_ & ~0x00000010);
+            } else {
+              ensureBatchIsMutable();
+              batch_.addAll(other.batch_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.batch_.isEmpty()) {
+            if (batchBuilder_.isEmpty()) {
+              batchBuilder_.dispose();
+              batchBuilder_ = null;
+              batch_ = other.batch_;
+              bitField0_ = (bitField0_ & ~0x00000010);
+              batchBuilder_ = 
+                com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders ?
+                   getBatchFieldBuilder() : null;
+            } else {
+              batchBuilder_.addAllMessages(other.batch_);
+            }
+          }
+        }
+        if (other.hasDictionary()) {
+          setDictionary(other.getDictionary());
+        }
+        if (other.hasRetryAfterMillis()) {
+          setRetryAfterMillis(other.getRetryAfterMillis());
+        }
+        if (other.hasTimestamp()) {
+          setTimestamp(other.getTimestamp());
+        }
+        if (other.hasRttMicros()) {
+          setRttMicros(other.getRttMicros());
+        }
+        if (other.hasGroup()) {
+          bitField0_ |= 0x00000200;
+          group_ = other.group_;
+          onChanged();
+        }
+        if (other.hasHeartbeatSeconds()) {
+          setHeartbeatSeconds(other.getHeartbeatSeconds());
+        }
+        if (other.hasCorrelationId()) {
+          setCorrelationId(other.getCorrelationId());
+        }
+        if (other.hasSeq()) {
+          setSeq(other.getSeq());
+        }
+        if (other.hasAck()) {
+          setAck(other.getAck());
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
@@ -587,6 +1599,11 @@ public final class Message {
         if (!hasCmd()) {
           return false;
         }
+        for (int i = 0; i < getBatchCount(); i++) {
+          if (!getBatch(i).isInitialized()) {
+            return false;
+          }
+        }
         return true;
       }
 
@@ -594,11 +1611,11 @@ public final class Message {
           com.google.protobuf.CodedInputStream input,
           com.google.protobuf.ExtensionRegistryLite extensionRegistry)
           throws java.io.IOException {
-        Message.MessageBase parsedMessage = null;
+        protobuf.Message.MessageBase parsedMessage = null;
         try {
           parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
         } catch (com.google.protobuf.InvalidProtocolBufferException e) {
-          parsedMessage = (Message.MessageBase) e.getUnfinishedMessage();
+          parsedMessage = (protobuf.Message.MessageBase) e.getUnfinishedMessage();
           throw e.unwrapIOException();
         } finally {
           if (parsedMessage != null) {
@@ -609,7 +1626,7 @@ public final class Message {
       }
       private int bitField0_;
 
-      private Object clientId_ = "";
+      private java.lang.Object clientId_ = "";
       /**
        * <code>required string clientId = 1;</code>
        */
@@ -619,18 +1636,18 @@ public final class Message {
       /**
        * <code>required string clientId = 1;</code>
        */
-      public String getClientId() {
-        Object ref = clientId_;
-        if (!(ref instanceof String)) {
+      public java.lang.String getClientId() {
+        java.lang.Object ref = clientId_;
+        if (!(ref instanceof java.lang.String)) {
           com.google.protobuf.ByteString bs =
               (com.google.protobuf.ByteString) ref;
-          String s = bs.toStringUtf8();
+          java.lang.String s = bs.toStringUtf8();
           if (bs.isValidUtf8()) {
             clientId_ = s;
           }
           return s;
         } else {
-          return (String) ref;
+          return (java.lang.String) ref;
         }
       }
       /**
@@ -638,11 +1655,11 @@ public final class Message {
        */
       public com.google.protobuf.ByteString
           getClientIdBytes() {
-        Object ref = clientId_;
+        java.lang.Object ref = clientId_;
         if (ref instanceof String) {
-          com.google.protobuf.ByteString b =
+          com.google.protobuf.ByteString b = 
               com.google.protobuf.ByteString.copyFromUtf8(
-                  (String) ref);
+                  (java.lang.String) ref);
           clientId_ = b;
           return b;
         } else {
@@ -653,7 +1670,7 @@ public final class Message {
        * <code>required string clientId = 1;</code>
        */
       public Builder setClientId(
-          String value) {
+          java.lang.String value) {
         if (value == null) {
     throw new NullPointerException();
   }
@@ -695,14 +1712,14 @@ public final class Message {
       /**
        * <code>required .CommandType cmd = 2;</code>
        */
-      public Command.CommandType getCmd() {
-        Command.CommandType result = Command.CommandType.valueOf(cmd_);
-        return result == null ? Command.CommandType.AUTH : result;
+      public protobuf.Command.CommandType getCmd() {
+        protobuf.Command.CommandType result = protobuf.Command.CommandType.valueOf(cmd_);
+        return result == null ? protobuf.Command.CommandType.AUTH : result;
       }
       /**
        * <code>required .CommandType cmd = 2;</code>
        */
-      public Builder setCmd(Command.CommandType value) {
+      public Builder setCmd(protobuf.Command.CommandType value) {
         if (value == null) {
           throw new NullPointerException();
         }
@@ -721,7 +1738,7 @@ public final class Message {
         return this;
       }
 
-      private Object data_ = "";
+      private java.lang.Object data_ = "";
       /**
        * <code>optional string data = 3;</code>
        */
@@ -731,18 +1748,18 @@ public final class Message {
       /**
        * <code>optional string data = 3;</code>
        */
-      public String getData() {
-        Object ref = data_;
-        if (!(ref instanceof String)) {
+      public java.lang.String getData() {
+        java.lang.Object ref = data_;
+        if (!(ref instanceof java.lang.String)) {
           com.google.protobuf.ByteString bs =
               (com.google.protobuf.ByteString) ref;
-          String s = bs.toStringUtf8();
+          java.lang.String s = bs.toStringUtf8();
           if (bs.isValidUtf8()) {
             data_ = s;
           }
           return s;
         } else {
-          return (String) ref;
+          return (java.lang.String) ref;
         }
       }
       /**
@@ -750,11 +1767,11 @@ public final class Message {
        */
       public com.google.protobuf.ByteString
           getDataBytes() {
-        Object ref = data_;
+        java.lang.Object ref = data_;
         if (ref instanceof String) {
-          com.google.protobuf.ByteString b =
+          com.google.protobuf.ByteString b = 
               com.google.protobuf.ByteString.copyFromUtf8(
-                  (String) ref);
+                  (java.lang.String) ref);
           data_ = b;
           return b;
         } else {
@@ -765,7 +1782,7 @@ public final class Message {
        * <code>optional string data = 3;</code>
        */
       public Builder setData(
-          String value) {
+          java.lang.String value) {
         if (value == null) {
     throw new NullPointerException();
   }
@@ -796,6 +1813,945 @@ public final class Message {
         onChanged();
         return this;
       }
+
+      private int features_ ;
+      /**
+       * <pre>
+       **
+       * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+       * 1: 紧凑心跳帧
+       * 2: 带预置字典的 deflate 帧压缩
+       * 4: 多路复用，一个连接挂载多个逻辑 clientId
+       * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+       * </pre>
+       *
+       * <code>optional uint32 features = 4;</code>
+       */
+      public boolean hasFeatures() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <pre>
+       **
+       * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+       * 1: 紧凑心跳帧
+       * 2: 带预置字典的 deflate 帧压缩
+       * 4: 多路复用，一个连接挂载多个逻辑 clientId
+       * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+       * </pre>
+       *
+       * <code>optional uint32 features = 4;</code>
+       */
+      public int getFeatures() {
+        return features_;
+      }
+      /**
+       * <pre>
+       **
+       * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+       * 1: 紧凑心跳帧
+       * 2: 带预置字典的 deflate 帧压缩
+       * 4: 多路复用，一个连接挂载多个逻辑 clientId
+       * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+       * </pre>
+       *
+       * <code>optional uint32 features = 4;</code>
+       */
+      public Builder setFeatures(int value) {
+        bitField0_ |= 0x00000008;
+        features_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * 能力协商位，AUTH 时由客户端声明，AUTH_BACK 时由服务端返回双方都支持的部分
+       * 1: 紧凑心跳帧
+       * 2: 带预置字典的 deflate 帧压缩
+       * 4: 多路复用，一个连接挂载多个逻辑 clientId
+       * 8: 可靠推送，PUSH_DATA 带序号，客户端累计确认，断线重连后重传未确认的推送
+       * </pre>
+       *
+       * <code>optional uint32 features = 4;</code>
+       */
+      public Builder clearFeatures() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        features_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private java.util.List<protobuf.Message.MessageBase> batch_ =
+        java.util.Collections.emptyList();
+      private void ensureBatchIsMutable() {
+        if (!((bitField0_ & 0x00000010) == 0x00000010)) {
+          batch_ = new java.util.ArrayList<protobuf.Message.MessageBase>(batch_);
+          bitField0_ |= 0x00000010;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+          protobuf.Message.MessageBase, protobuf.Message.MessageBase.Builder, protobuf.Message.MessageBaseOrBuilder> batchBuilder_;
+
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public java.util.List<protobuf.Message.MessageBase> getBatchList() {
+        if (batchBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(batch_);
+        } else {
+          return batchBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public int getBatchCount() {
+        if (batchBuilder_ == null) {
+          return batch_.size();
+        } else {
+          return batchBuilder_.getCount();
+        }
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public protobuf.Message.MessageBase getBatch(int index) {
+        if (batchBuilder_ == null) {
+          return batch_.get(index);
+        } else {
+          return batchBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder setBatch(
+          int index, protobuf.Message.MessageBase value) {
+        if (batchBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureBatchIsMutable();
+          batch_.set(index, value);
+          onChanged();
+        } else {
+          batchBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder setBatch(
+          int index, protobuf.Message.MessageBase.Builder builderForValue) {
+        if (batchBuilder_ == null) {
+          ensureBatchIsMutable();
+          batch_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          batchBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder addBatch(protobuf.Message.MessageBase value) {
+        if (batchBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureBatchIsMutable();
+          batch_.add(value);
+          onChanged();
+        } else {
+          batchBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder addBatch(
+          int index, protobuf.Message.MessageBase value) {
+        if (batchBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureBatchIsMutable();
+          batch_.add(index, value);
+          onChanged();
+        } else {
+          batchBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder addBatch(
+          protobuf.Message.MessageBase.Builder builderForValue) {
+        if (batchBuilder_ == null) {
+          ensureBatchIsMutable();
+          batch_.add(builderForValue.build());
+          onChanged();
+        } else {
+          batchBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder addBatch(
+          int index, protobuf.Message.MessageBase.Builder builderForValue) {
+        if (batchBuilder_ == null) {
+          ensureBatchIsMutable();
+          batch_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          batchBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder addAllBatch(
+          java.lang.Iterable<? extends protobuf.Message.MessageBase> values) {
+        if (batchBuilder_ == null) {
+          ensureBatchIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(
+              values, batch_);
+          onChanged();
+        } else {
+          batchBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder clearBatch() {
+        if (batchBuilder_ == null) {
+          batch_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000010);
+          onChanged();
+        } else {
+          batchBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public Builder removeBatch(int index) {
+        if (batchBuilder_ == null) {
+          ensureBatchIsMutable();
+          batch_.remove(index);
+          onChanged();
+        } else {
+          batchBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public protobuf.Message.MessageBase.Builder getBatchBuilder(
+          int index) {
+        return getBatchFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public protobuf.Message.MessageBaseOrBuilder getBatchOrBuilder(
+          int index) {
+        if (batchBuilder_ == null) {
+          return batch_.get(index);  } else {
+          return batchBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public java.util.List<? extends protobuf.Message.MessageBaseOrBuilder> 
+           getBatchOrBuilderList() {
+        if (batchBuilder_ != null) {
+          return batchBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(batch_);
+        }
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public protobuf.Message.MessageBase.Builder addBatchBuilder() {
+        return getBatchFieldBuilder().addBuilder(
+            protobuf.Message.MessageBase.getDefaultInstance());
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public protobuf.Message.MessageBase.Builder addBatchBuilder(
+          int index) {
+        return getBatchFieldBuilder().addBuilder(
+            index, protobuf.Message.MessageBase.getDefaultInstance());
+      }
+      /**
+       * <pre>
+       **
+       * UPLOAD_BATCH 的条目，每个条目按 UPLOAD_DATA 处理
+       * </pre>
+       *
+       * <code>repeated .MessageBase batch = 5;</code>
+       */
+      public java.util.List<protobuf.Message.MessageBase.Builder> 
+           getBatchBuilderList() {
+        return getBatchFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+          protobuf.Message.MessageBase, protobuf.Message.MessageBase.Builder, protobuf.Message.MessageBaseOrBuilder> 
+          getBatchFieldBuilder() {
+        if (batchBuilder_ == null) {
+          batchBuilder_ = new com.google.protobuf.RepeatedFieldBuilderV3<
+              protobuf.Message.MessageBase, protobuf.Message.MessageBase.Builder, protobuf.Message.MessageBaseOrBuilder>(
+                  batch_,
+                  ((bitField0_ & 0x00000010) == 0x00000010),
+                  getParentForChildren(),
+                  isClean());
+          batch_ = null;
+        }
+        return batchBuilder_;
+      }
+
+      private com.google.protobuf.ByteString dictionary_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <pre>
+       **
+       * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+       * </pre>
+       *
+       * <code>optional bytes dictionary = 6;</code>
+       */
+      public boolean hasDictionary() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+      /**
+       * <pre>
+       **
+       * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+       * </pre>
+       *
+       * <code>optional bytes dictionary = 6;</code>
+       */
+      public com.google.protobuf.ByteString getDictionary() {
+        return dictionary_;
+      }
+      /**
+       * <pre>
+       **
+       * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+       * </pre>
+       *
+       * <code>optional bytes dictionary = 6;</code>
+       */
+      public Builder setDictionary(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000020;
+        dictionary_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * 协商了 deflate 压缩时，服务端在 AUTH_BACK 中下发的预置字典
+       * </pre>
+       *
+       * <code>optional bytes dictionary = 6;</code>
+       */
+      public Builder clearDictionary() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        dictionary_ = getDefaultInstance().getDictionary();
+        onChanged();
+        return this;
+      }
+
+      private int retryAfterMillis_ ;
+      /**
+       * <pre>
+       **
+       * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+       * </pre>
+       *
+       * <code>optional uint32 retryAfterMillis = 7;</code>
+       */
+      public boolean hasRetryAfterMillis() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+      /**
+       * <pre>
+       **
+       * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+       * </pre>
+       *
+       * <code>optional uint32 retryAfterMillis = 7;</code>
+       */
+      public int getRetryAfterMillis() {
+        return retryAfterMillis_;
+      }
+      /**
+       * <pre>
+       **
+       * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+       * </pre>
+       *
+       * <code>optional uint32 retryAfterMillis = 7;</code>
+       */
+      public Builder setRetryAfterMillis(int value) {
+        bitField0_ |= 0x00000040;
+        retryAfterMillis_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * RECONNECT 时建议客户端等待多久（毫秒）再重连，服务端为每个连接随机取值以错开重连
+       * </pre>
+       *
+       * <code>optional uint32 retryAfterMillis = 7;</code>
+       */
+      public Builder clearRetryAfterMillis() {
+        bitField0_ = (bitField0_ & ~0x00000040);
+        retryAfterMillis_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private long timestamp_ ;
+      /**
+       * <pre>
+       **
+       * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+       * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+       * </pre>
+       *
+       * <code>optional fixed64 timestamp = 8;</code>
+       */
+      public boolean hasTimestamp() {
+        return ((bitField0_ & 0x00000080) == 0x00000080);
+      }
+      /**
+       * <pre>
+       **
+       * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+       * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+       * </pre>
+       *
+       * <code>optional fixed64 timestamp = 8;</code>
+       */
+      public long getTimestamp() {
+        return timestamp_;
+      }
+      /**
+       * <pre>
+       **
+       * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+       * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+       * </pre>
+       *
+       * <code>optional fixed64 timestamp = 8;</code>
+       */
+      public Builder setTimestamp(long value) {
+        bitField0_ |= 0x00000080;
+        timestamp_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * PING 时为客户端发送时刻的单调时钟（微秒），服务端在 PONG 中原样带回，用于计算往返时间
+       * 用 fixed64 保证编码长度固定，服务端可以直接改写预编码 pong 帧中的这 8 个字节
+       * </pre>
+       *
+       * <code>optional fixed64 timestamp = 8;</code>
+       */
+      public Builder clearTimestamp() {
+        bitField0_ = (bitField0_ & ~0x00000080);
+        timestamp_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int rttMicros_ ;
+      /**
+       * <pre>
+       **
+       * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+       * </pre>
+       *
+       * <code>optional uint32 rttMicros = 9;</code>
+       */
+      public boolean hasRttMicros() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+      /**
+       * <pre>
+       **
+       * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+       * </pre>
+       *
+       * <code>optional uint32 rttMicros = 9;</code>
+       */
+      public int getRttMicros() {
+        return rttMicros_;
+      }
+      /**
+       * <pre>
+       **
+       * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+       * </pre>
+       *
+       * <code>optional uint32 rttMicros = 9;</code>
+       */
+      public Builder setRttMicros(int value) {
+        bitField0_ |= 0x00000100;
+        rttMicros_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * PING 时客户端上报最近一次测得的心跳往返时间（微秒）
+       * </pre>
+       *
+       * <code>optional uint32 rttMicros = 9;</code>
+       */
+      public Builder clearRttMicros() {
+        bitField0_ = (bitField0_ & ~0x00000100);
+        rttMicros_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object group_ = "";
+      /**
+       * <pre>
+       **
+       * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+       * </pre>
+       *
+       * <code>optional string group = 10;</code>
+       */
+      public boolean hasGroup() {
+        return ((bitField0_ & 0x00000200) == 0x00000200);
+      }
+      /**
+       * <pre>
+       **
+       * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+       * </pre>
+       *
+       * <code>optional string group = 10;</code>
+       */
+      public java.lang.String getGroup() {
+        java.lang.Object ref = group_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          if (bs.isValidUtf8()) {
+            group_ = s;
+          }
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <pre>
+       **
+       * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+       * </pre>
+       *
+       * <code>optional string group = 10;</code>
+       */
+      public com.google.protobuf.ByteString
+          getGroupBytes() {
+        java.lang.Object ref = group_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          group_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <pre>
+       **
+       * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+       * </pre>
+       *
+       * <code>optional string group = 10;</code>
+       */
+      public Builder setGroup(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000200;
+        group_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+       * </pre>
+       *
+       * <code>optional string group = 10;</code>
+       */
+      public Builder clearGroup() {
+        bitField0_ = (bitField0_ & ~0x00000200);
+        group_ = getDefaultInstance().getGroup();
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * AUTH 时客户端所属的分组（租户 / 标签），服务端按分组统计
+       * </pre>
+       *
+       * <code>optional string group = 10;</code>
+       */
+      public Builder setGroupBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000200;
+        group_ = value;
+        onChanged();
+        return this;
+      }
+
+      private int heartbeatSeconds_ ;
+      /**
+       * <pre>
+       **
+       * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+       * </pre>
+       *
+       * <code>optional uint32 heartbeatSeconds = 11;</code>
+       */
+      public boolean hasHeartbeatSeconds() {
+        return ((bitField0_ & 0x00000400) == 0x00000400);
+      }
+      /**
+       * <pre>
+       **
+       * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+       * </pre>
+       *
+       * <code>optional uint32 heartbeatSeconds = 11;</code>
+       */
+      public int getHeartbeatSeconds() {
+        return heartbeatSeconds_;
+      }
+      /**
+       * <pre>
+       **
+       * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+       * </pre>
+       *
+       * <code>optional uint32 heartbeatSeconds = 11;</code>
+       */
+      public Builder setHeartbeatSeconds(int value) {
+        bitField0_ |= 0x00000400;
+        heartbeatSeconds_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * AUTH_BACK / PONG 时服务端指定的心跳间隔（秒），客户端收到后调整自己的空闲检测；只在间隔变化时下发
+       * </pre>
+       *
+       * <code>optional uint32 heartbeatSeconds = 11;</code>
+       */
+      public Builder clearHeartbeatSeconds() {
+        bitField0_ = (bitField0_ & ~0x00000400);
+        heartbeatSeconds_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int correlationId_ ;
+      /**
+       * <pre>
+       **
+       * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+       * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+       * </pre>
+       *
+       * <code>optional uint32 correlationId = 12;</code>
+       */
+      public boolean hasCorrelationId() {
+        return ((bitField0_ & 0x00000800) == 0x00000800);
+      }
+      /**
+       * <pre>
+       **
+       * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+       * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+       * </pre>
+       *
+       * <code>optional uint32 correlationId = 12;</code>
+       */
+      public int getCorrelationId() {
+        return correlationId_;
+      }
+      /**
+       * <pre>
+       **
+       * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+       * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+       * </pre>
+       *
+       * <code>optional uint32 correlationId = 12;</code>
+       */
+      public Builder setCorrelationId(int value) {
+        bitField0_ |= 0x00000800;
+        correlationId_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * 请求的关联 id，由发送方分配（非 0），对端在对应的响应中原样带回；
+       * 同一连接上可以同时有多个未完成的请求，响应不要求按顺序返回
+       * </pre>
+       *
+       * <code>optional uint32 correlationId = 12;</code>
+       */
+      public Builder clearCorrelationId() {
+        bitField0_ = (bitField0_ & ~0x00000800);
+        correlationId_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private long seq_ ;
+      /**
+       * <pre>
+       **
+       * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+       * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+       * </pre>
+       *
+       * <code>optional uint64 seq = 13;</code>
+       */
+      public boolean hasSeq() {
+        return ((bitField0_ & 0x00001000) == 0x00001000);
+      }
+      /**
+       * <pre>
+       **
+       * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+       * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+       * </pre>
+       *
+       * <code>optional uint64 seq = 13;</code>
+       */
+      public long getSeq() {
+        return seq_;
+      }
+      /**
+       * <pre>
+       **
+       * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+       * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+       * </pre>
+       *
+       * <code>optional uint64 seq = 13;</code>
+       */
+      public Builder setSeq(long value) {
+        bitField0_ |= 0x00001000;
+        seq_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * 可靠推送时 PUSH_DATA 的序号，由服务端按 clientId 分配，从 1 开始连续递增，重连后延续；
+       * PUSH_DATA_BACK 中带 seq 表示客户端发现了空洞（NACK），seq 为缺失的第一个序号，服务端从 ack + 1 开始重传
+       * </pre>
+       *
+       * <code>optional uint64 seq = 13;</code>
+       */
+      public Builder clearSeq() {
+        bitField0_ = (bitField0_ & ~0x00001000);
+        seq_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long ack_ ;
+      /**
+       * <pre>
+       **
+       * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+       * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+       * </pre>
+       *
+       * <code>optional uint64 ack = 14;</code>
+       */
+      public boolean hasAck() {
+        return ((bitField0_ & 0x00002000) == 0x00002000);
+      }
+      /**
+       * <pre>
+       **
+       * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+       * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+       * </pre>
+       *
+       * <code>optional uint64 ack = 14;</code>
+       */
+      public long getAck() {
+        return ack_;
+      }
+      /**
+       * <pre>
+       **
+       * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+       * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+       * </pre>
+       *
+       * <code>optional uint64 ack = 14;</code>
+       */
+      public Builder setAck(long value) {
+        bitField0_ |= 0x00002000;
+        ack_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       **
+       * 可靠推送的累计确认：PUSH_DATA_BACK 中表示序号不大于该值的推送都已收到；
+       * AUTH 中为客户端已收到的最大连续序号，AUTH_BACK 中为服务端采用的值，双方从这里继续
+       * </pre>
+       *
+       * <code>optional uint64 ack = 14;</code>
+       */
+      public Builder clearAck() {
+        bitField0_ = (bitField0_ & ~0x00002000);
+        ack_ = 0L;
+        onChanged();
+        return this;
+      }
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
         return super.setUnknownFields(unknownFields);
@@ -811,16 +2767,16 @@ public final class Message {
     }
 
     // @@protoc_insertion_point(class_scope:MessageBase)
-    private static final Message.MessageBase DEFAULT_INSTANCE;
+    private static final protobuf.Message.MessageBase DEFAULT_INSTANCE;
     static {
-      DEFAULT_INSTANCE = new Message.MessageBase();
+      DEFAULT_INSTANCE = new protobuf.Message.MessageBase();
     }
 
-    public static Message.MessageBase getDefaultInstance() {
+    public static protobuf.Message.MessageBase getDefaultInstance() {
       return DEFAULT_INSTANCE;
     }
 
-    @Deprecated public static final com.google.protobuf.Parser<MessageBase>
+    @java.lang.Deprecated public static final com.google.protobuf.Parser<MessageBase>
         PARSER = new com.google.protobuf.AbstractParser<MessageBase>() {
       public MessageBase parsePartialFrom(
           com.google.protobuf.CodedInputStream input,
@@ -834,12 +2790,12 @@ public final class Message {
       return PARSER;
     }
 
-    @Override
+    @java.lang.Override
     public com.google.protobuf.Parser<MessageBase> getParserForType() {
       return PARSER;
     }
 
-    public Message.MessageBase getDefaultInstanceForType() {
+    public protobuf.Message.MessageBase getDefaultInstanceForType() {
       return DEFAULT_INSTANCE;
     }
 
@@ -847,7 +2803,7 @@ public final class Message {
 
   private static final com.google.protobuf.Descriptors.Descriptor
     internal_static_MessageBase_descriptor;
-  private static final
+  private static final 
     com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
       internal_static_MessageBase_fieldAccessorTable;
 
@@ -858,11 +2814,16 @@ public final class Message {
   private static  com.google.protobuf.Descriptors.FileDescriptor
       descriptor;
   static {
-    String[] descriptorData = {
-      "\n\rMessage.proto\032\rCommand.proto\"H\n\013Messag" +
-      "eBase\022\020\n\010clientId\030\001 \002(\t\022\031\n\003cmd\030\002 \002(\0162\014.C" +
-      "ommandType\022\014\n\004data\030\003 \001(\tB\023\n\010protobufB\007Me" +
-      "ssage"
+    java.lang.String[] descriptorData = {
+      "\n\rMessage.proto\032\rCommand.proto\"\245\002\n\013Messa" +
+      "geBase\022\020\n\010clientId\030\001 \002(\t\022\031\n\003cmd\030\002 \002(\0162\014." +
+      "CommandType\022\014\n\004data\030\003 \001(\t\022\020\n\010features\030\004 " +
+      "\001(\r\022\033\n\005batch\030\005 \003(\0132\014.MessageBase\022\022\n\ndict" +
+      "ionary\030\006 \001(\014\022\030\n\020retryAfterMillis\030\007 \001(\r\022\021" +
+      "\n\ttimestamp\030\010 \001(\006\022\021\n\trttMicros\030\t \001(\r\022\r\n\005" +
+      "group\030\n \001(\t\022\030\n\020heartbeatSeconds\030\013 \001(\r\022\025\n" +
+      "\rcorrelationId\030\014 \001(\r\022\013\n\003seq\030\r \001(\004\022\013\n\003ack" +
+      "\030\016 \001(\004B\023\n\010protobufB\007Message"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -875,15 +2836,15 @@ public final class Message {
     com.google.protobuf.Descriptors.FileDescriptor
       .internalBuildGeneratedFileFrom(descriptorData,
         new com.google.protobuf.Descriptors.FileDescriptor[] {
-          Command.getDescriptor(),
+          protobuf.Command.getDescriptor(),
         }, assigner);
     internal_static_MessageBase_descriptor =
       getDescriptor().getMessageTypes().get(0);
     internal_static_MessageBase_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_MessageBase_descriptor,
-        new String[] { "ClientId", "Cmd", "Data", });
-    Command.getDescriptor();
+        new java.lang.String[] { "ClientId", "Cmd", "Data", "Features", "Batch", "Dictionary", "RetryAfterMillis", "Timestamp", "RttMicros", "Group", "HeartbeatSeconds", "CorrelationId", "Seq", "Ack", });
+    protobuf.Command.getDescriptor();
   }
 
   // @@protoc_insertion_point(outer_class_scope)
@@ -1,11 +1,21 @@
 package server;
 
+import codec.DeflateFrameCompression;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,17 +25,28 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.*;
+import server.liveness.HeartbeatIntervalPolicy;
+import server.liveness.LivenessEngine;
+import server.liveness.LivenessPolicy;
+import server.liveness.MissedHeartbeatPolicy;
+import server.liveness.PhiAccrualPolicy;
+import server.metrics.HeartbeatMetrics;
 
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @SpringBootApplication
 @ComponentScan(value = "server")
 @PropertySource(value = "classpath:/application.properties")
 @EnableAutoConfiguration(exclude={DataSourceAutoConfiguration.class})
 public class Application {
+    private static final Logger log = LoggerFactory.getLogger(Application.class);
+
     @Configuration
     @Profile("production")
     @PropertySource("classpath:/application.properties")
@@ -59,11 +80,124 @@ public class Application {
     @Value("${so.backlog}")
     private int backlog;
 
+    // 连接出站缓冲区超过高水位后变为不可写，降到低水位以下恢复可写
+    @Value("${write.buffer.high.water.mark:65536}")
+    private int writeBufferHighWaterMark;
+
+    @Value("${write.buffer.low.water.mark:32768}")
+    private int writeBufferLowWaterMark;
+
+    private static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
+
+    // 传输层实现：nio / epoll
+    @Value("${tcp.transport:nio}")
+    private String transport;
+
+    // epoll 模式下通过 SO_REUSEPORT 在同一端口上绑定的监听 channel 数
+    @Value("${tcp.listener.count:1}")
+    private int listenerCount;
+
+    // 读操作空闲 20 秒
+    @Value("${idle.reader.seconds:20}")
+    private int readerIdleSeconds;
+
+    // 写操作空闲 20 秒
+    @Value("${idle.writer.seconds:20}")
+    private int writerIdleSeconds;
+
+    // 服务端没有收到心跳消息的最大次数（missed 策略）
+    @Value("${idle.max.un.rec.ping.times:3}")
+    private int maxUnRecPingTimes;
+
+    // 存活检测时间轮的格子数，一圈为一个检查周期
+    @Value("${idle.wheel.ticks:64}")
+    private int wheelTicks;
+
+    // 每个连接被检查一次的周期（秒）
+    @Value("${idle.check.seconds:5}")
+    private int idleCheckSeconds;
+
+    // 断线判定策略：missed（连续未收到心跳次数） / phi（phi accrual）
+    @Value("${liveness.policy:missed}")
+    private String livenessPolicy;
+
+    // phi 超过该值判定为断线，8 约对应 1e-8 的误判概率
+    @Value("${liveness.phi.threshold:8}")
+    private double phiThreshold;
+
+    // 每个连接保留的心跳间隔样本数
+    @Value("${liveness.phi.window:16}")
+    private int phiWindow;
+
+    // 标准差下限，避免间隔非常稳定时一点抖动就判定为断线
+    @Value("${liveness.phi.min.std.millis:500}")
+    private long phiMinStdMillis;
+
+    // 可接受的额外停顿，如对端 GC
+    @Value("${liveness.phi.acceptable.pause.millis:0}")
+    private long phiAcceptablePauseMillis;
+
+    // 小于该长度的帧不压缩
+    @Value("${compression.threshold:256}")
+    private int compressionThreshold;
+
+    @Value("${compression.level:6}")
+    private int compressionLevel;
+
+    // deflate 预置字典，AUTH_BACK 时下发给客户端
+    @Value("${compression.dictionary:}")
+    private String compressionDictionary;
+
+    // 心跳往返时间直方图的上限（微秒），超过的值计入最后一个桶
+    @Value("${metrics.rtt.max.micros:60000000}")
+    private long rttMaxMicros;
+
+    // 服务端下发的心跳间隔（秒），随连接数和 EventLoop 延迟在 [min, max] 之间调整
+    @Value("${heartbeat.interval.base.seconds:10}")
+    private int heartbeatBaseSeconds;
+
+    @Value("${heartbeat.interval.min.seconds:5}")
+    private int heartbeatMinSeconds;
+
+    @Value("${heartbeat.interval.max.seconds:20}")
+    private int heartbeatMaxSeconds;
+
+    // 连接数达到该值之后间隔按 sqrt(连接数 / 该值) 增长
+    @Value("${heartbeat.interval.reference.connections:10000}")
+    private int heartbeatReferenceConnections;
+
+    // EventLoop 延迟超过该值后，间隔按 延迟 / 该值 的倍数增长
+    @Value("${heartbeat.interval.lag.reference.millis:50}")
+    private long heartbeatLagReferenceMillis;
+
+    // 断开后该时间内重连的客户端视为不稳定，使用最短间隔
+    @Value("${heartbeat.interval.flaky.window.seconds:60}")
+    private int heartbeatFlakyWindowSeconds;
+
+    @Value("${heartbeat.interval.sample.millis:1000}")
+    private long heartbeatSampleMillis;
+
+    // 服务端向每个连接同时发出的未确认请求数，超出后排队
+    @Value("${request.max.in.flight:32}")
+    private int requestMaxInFlight;
+
+    // 每个连接最多排队的请求数，超出后直接拒绝
+    @Value("${request.max.queued:1024}")
+    private int requestMaxQueued;
+
+    // 可靠推送每个客户端最多保留的未确认推送数
+    @Value("${push.reliable.window:256}")
+    private int reliablePushWindow;
+
+    // 客户端断线后发件箱保留的时间（秒），期间重连可以收到断线前后未确认的推送
+    @Value("${push.reliable.retain.seconds:300}")
+    private int reliablePushRetainSeconds;
+
     @Bean(name = "serverBootstrap")
     public ServerBootstrap bootstrap() {
         ServerBootstrap b = new ServerBootstrap();
         b.group(bossGroup(), workerGroup())
-                .channel(NioServerSocketChannel.class)
+                .channel(serverChannelClass())
                 .handler(new LoggingHandler(LogLevel.DEBUG))    // 将 Loglevel 设置成 DEBUG 模式
                 .childHandler(serverChannelInitializer);
 
@@ -72,6 +206,7 @@ public class Application {
         for (@SuppressWarnings("rawtypes") ChannelOption option : keySet) {
             b.option(option, tcpChannelOptions.get(option));
         }
+        childOptions(b);
         return b;
     }
 
@@ -84,26 +219,124 @@ public class Application {
         Map<ChannelOption<?>, Object> options = new HashMap<>();
         options.put(ChannelOption.SO_KEEPALIVE, keepAlive);
         options.put(ChannelOption.SO_BACKLOG, backlog);
+        if (useEpoll()) {
+            // 多个监听 channel 共享同一端口，由内核在它们之间分发 accept
+            options.put(EpollChannelOption.SO_REUSEPORT, true);
+            options.put(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        }
         return options;
     }
 
+    /**
+     * 客户端连接（child channel）的选项，按设置的先后顺序应用
+     * 高水位不能低于当前低水位（默认 32K），低水位不能高于当前高水位（默认 64K），按新值决定先设置哪一个
+     */
+    private void childOptions(ServerBootstrap b) {
+        b.childOption(ChannelOption.SO_KEEPALIVE, keepAlive);
+        if (writeBufferLowWaterMark <= DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK) {
+            b.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, writeBufferLowWaterMark);
+            b.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, writeBufferHighWaterMark);
+        } else {
+            b.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, writeBufferHighWaterMark);
+            b.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, writeBufferLowWaterMark);
+        }
+    }
+
     @Bean(name = "bossGroup", destroyMethod = "shutdownGracefully")
-    public NioEventLoopGroup bossGroup() {
+    public EventLoopGroup bossGroup() {
+        if (useEpoll()) {
+            // 每个监听 channel 独占一个 accept 线程
+            return new EpollEventLoopGroup(Math.max(bossCount, listenerCount()));
+        }
         return new NioEventLoopGroup(bossCount);
     }
 
     @Bean(name = "workerGroup", destroyMethod = "shutdownGracefully")
-    public NioEventLoopGroup workerGroup() {
+    public EventLoopGroup workerGroup() {
+        if (useEpoll()) {
+            return new EpollEventLoopGroup(workerCount);
+        }
         return new NioEventLoopGroup(workerCount);
     }
 
+    /**
+     * 需要绑定的监听 channel 数，nio 模式下固定为 1
+     */
+    @Bean(name = "tcpListenerCount")
+    public Integer listenerCount() {
+        return useEpoll() ? Math.max(1, listenerCount) : 1;
+    }
+
+    private Class<? extends ServerSocketChannel> serverChannelClass() {
+        return useEpoll() ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    /**
+     * 配置为 epoll 且当前平台支持 native epoll 时才启用，否则回退到 nio
+     */
+    private boolean useEpoll() {
+        if (!"epoll".equalsIgnoreCase(transport)) {
+            return false;
+        }
+        if (!Epoll.isAvailable()) {
+            log.warn("Native epoll transport is unavailable, falling back to nio", Epoll.unavailabilityCause());
+            transport = "nio";
+            return false;
+        }
+        return true;
+    }
+
     @Bean(name = "tcpSocketAddress")
     public InetSocketAddress tcpPort() {
         return new InetSocketAddress(tcpPort);
     }
 
+    @Bean(name = "livenessEngine")
+    public LivenessEngine livenessEngine() {
+        Supplier<LivenessPolicy> policyFactory;
+        if ("phi".equalsIgnoreCase(livenessPolicy)) {
+            // 样本不足时以服务端下发的基础心跳间隔作为估计
+            long firstEstimateMillis = TimeUnit.SECONDS.toMillis(heartbeatBaseSeconds);
+            policyFactory = () -> new PhiAccrualPolicy(phiThreshold, phiWindow, phiMinStdMillis,
+                    phiAcceptablePauseMillis, firstEstimateMillis);
+        } else {
+            long readerIdleNanos = TimeUnit.SECONDS.toNanos(readerIdleSeconds);
+            policyFactory = () -> new MissedHeartbeatPolicy(readerIdleNanos, maxUnRecPingTimes);
+        }
+        return new LivenessEngine(readerIdleSeconds, writerIdleSeconds, idleCheckSeconds, wheelTicks, policyFactory);
+    }
+
+    @Bean(name = "frameCompression")
+    public DeflateFrameCompression frameCompression() {
+        return new DeflateFrameCompression(compressionDictionary.getBytes(StandardCharsets.UTF_8),
+                compressionThreshold, compressionLevel);
+    }
+
+    @Bean(name = "heartbeatMetrics")
+    public HeartbeatMetrics heartbeatMetrics() {
+        return new HeartbeatMetrics(rttMaxMicros);
+    }
+
+    @Bean(name = "heartbeatIntervalPolicy", initMethod = "start", destroyMethod = "stop")
+    public HeartbeatIntervalPolicy heartbeatIntervalPolicy() {
+        int maxSeconds = heartbeatMaxSeconds;
+        if (maxSeconds > readerIdleSeconds) {
+            // 间隔超过读超时会被存活检测误判为断线
+            log.warn("heartbeat.interval.max.seconds {} exceeds idle.reader.seconds, using {}", maxSeconds, readerIdleSeconds);
+            maxSeconds = readerIdleSeconds;
+        }
+        return new HeartbeatIntervalPolicy(workerGroup(), channelRepository(), heartbeatBaseSeconds,
+                heartbeatMinSeconds, maxSeconds, heartbeatReferenceConnections, heartbeatLagReferenceMillis,
+                heartbeatFlakyWindowSeconds, heartbeatSampleMillis);
+    }
+
+    @Bean(name = "reliablePush")
+    public ReliablePush reliablePush() {
+        return new ReliablePush(reliablePushWindow, reliablePushRetainSeconds);
+    }
+
     @Bean(name = "channelRepository")
     public ChannelRepository channelRepository() {
-        return new ChannelRepository();
+        return new ChannelRepository(requestMaxInFlight, requestMaxQueued);
     }
 }
\ No newline at end of file
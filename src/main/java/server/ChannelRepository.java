@@ -1,29 +1,492 @@
 package server;
 
+import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import server.codec.ProtobufFrames;
 
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Channel Cache Manager
+ * 1. 按 channel 所属的 EventLoop 分片，每个分片只由自己的 EventLoop 线程修改（单写者），其它线程可以无锁读取
+ * 2. 注册时监听 closeFuture，连接关闭后自动清理
+ * 3. 除 clientId 外还维护远程地址、分组（租户 / 标签）两个二级索引
+ * 4. 广播：消息只编码一次，每个 EventLoop 提交一个任务，写完本分片的所有目标后统一 flush
+ * 5. 多路复用连接上挂载的逻辑 clientId 单独索引，按 (channel, 逻辑 clientId) 路由推送；
+ *    逻辑 clientId 属于所在连接的分组，广播按物理连接进行，每个连接只写一次，由网关分发
+ * 6. 服务端主动请求：{@link #request} 返回在客户端确认后完成的 future，每个连接的并发请求数受窗口限制，见 {@link ClientRequests}
  */
 public class ChannelRepository {
-    private static final Map<String, Channel> channelCache = new ConcurrentHashMap<>();
+    private static final AttributeKey<Entry> ENTRY = AttributeKey.valueOf("channelRepositoryEntry");
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 32;
+    private static final int DEFAULT_MAX_QUEUED = 1024;
+
+    private final Map<EventLoop, Shard> shards = new ConcurrentHashMap<>();
+    // 每个连接同时未完成的服务端请求数，以及超出后允许排队的请求数
+    private final int maxInFlight;
+    private final int maxQueued;
+
+    public ChannelRepository() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUED);
+    }
+
+    public ChannelRepository(int maxInFlight, int maxQueued) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+    }
 
     public void put(String key, Channel value) {
-        channelCache.put(key, value);
+        put(key, value, null);
+    }
+
+    /**
+     * 注册 channel，group 为空表示不属于任何分组
+     */
+    public void put(String key, Channel value, String group) {
+        EventLoop loop = value.eventLoop();
+        if (loop.inEventLoop()) {
+            shard(loop).put(key, value, group);
+        } else {
+            loop.execute(() -> shard(loop).put(key, value, group));
+        }
     }
 
+    /**
+     * 按 clientId 或逻辑 clientId 查找所在的连接；主 clientId 优先于逻辑 clientId，
+     * 设备直连接管网关上的同名逻辑 clientId 时，解除挂载完成之前也不会路由到网关
+     */
     public Channel get(String key) {
-        return channelCache.get(key);
+        Channel inactive = null;
+        for (Shard shard : shards.values()) {
+            Channel channel = shard.byClientId.get(key);
+            if (channel != null) {
+                // 重连时旧连接可能还未清理，优先返回活跃的连接
+                if (channel.isActive()) {
+                    return channel;
+                }
+                inactive = channel;
+            }
+        }
+        if (inactive != null) {
+            return inactive;
+        }
+        return getLogical(key);
+    }
+
+    public Channel getByRemoteAddress(SocketAddress remoteAddress) {
+        for (Shard shard : shards.values()) {
+            Channel channel = shard.byRemoteAddress.get(remoteAddress);
+            if (channel != null) {
+                return channel;
+            }
+        }
+        return null;
     }
 
     public void remove(String key) {
-        channelCache.remove(key);
+        for (Shard shard : shards.values()) {
+            Channel channel = shard.byClientId.get(key);
+            if (channel != null) {
+                remove(channel);
+            }
+            channel = shard.byLogicalId.get(key);
+            if (channel != null) {
+                detach(key, channel);
+            }
+        }
+    }
+
+    /**
+     * 是否为某个已注册连接的（主）clientId，不含逻辑 clientId
+     */
+    public boolean isClientId(String key) {
+        for (Shard shard : shards.values()) {
+            if (shard.byClientId.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 在已注册的连接上挂载逻辑 clientId，调用方需先用 {@link #isClientId} 排除其它连接的主 clientId
+     * 返回该逻辑 clientId 之前挂载的其它连接（由调用方通知它被接管），没有时返回 null
+     */
+    public Channel attach(String logicalId, Channel channel) {
+        Channel previous = getLogical(logicalId);
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            shard(loop).attach(logicalId, channel);
+        } else {
+            loop.execute(() -> shard(loop).attach(logicalId, channel));
+        }
+        if (previous != null && previous != channel) {
+            detach(logicalId, previous);
+            return previous;
+        }
+        return null;
+    }
+
+    /**
+     * 设备以 clientId 直接认证时调用：解除该 clientId 在其它连接上的逻辑挂载，
+     * 返回原来挂载的连接（由调用方通知它被接管），没有时返回 null
+     */
+    public Channel takeOver(String clientId, Channel channel) {
+        Channel previous = getLogical(clientId);
+        if (previous == null || previous == channel) {
+            return null;
+        }
+        detach(clientId, previous);
+        return previous;
+    }
+
+    private Channel getLogical(String logicalId) {
+        Channel inactive = null;
+        for (Shard shard : shards.values()) {
+            Channel channel = shard.byLogicalId.get(logicalId);
+            if (channel != null) {
+                if (channel.isActive()) {
+                    return channel;
+                }
+                inactive = channel;
+            }
+        }
+        return inactive;
+    }
+
+    public void detach(String logicalId, Channel channel) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            shard(loop).detach(logicalId, channel);
+        } else {
+            loop.execute(() -> shard(loop).detach(logicalId, channel));
+        }
+    }
+
+    /**
+     * 逻辑 clientId 是否挂载在该连接上，只能在该连接的 EventLoop 中调用
+     */
+    public boolean isAttached(Channel channel, String logicalId) {
+        Entry entry = channel.attr(ENTRY).get();
+        return entry != null && entry.logicalIds != null && entry.logicalIds.contains(logicalId);
+    }
+
+    /**
+     * 连接上挂载的逻辑 clientId 数，只能在该连接的 EventLoop 中调用
+     */
+    public int logicalCount(Channel channel) {
+        Entry entry = channel.attr(ENTRY).get();
+        return entry == null || entry.logicalIds == null ? 0 : entry.logicalIds.size();
+    }
+
+    /**
+     * 向某个 clientId（可以是逻辑 clientId）推送消息，消息的 clientId 改为目标 clientId，网关据此分发
+     * 目标不在线时返回 false
+     */
+    public boolean push(String clientId, MessageBase msg) {
+        Channel channel = get(clientId);
+        if (channel == null || !channel.isActive()) {
+            return false;
+        }
+        if (!clientId.equals(msg.getClientId())) {
+            msg = msg.toBuilder().setClientId(clientId).build();
+        }
+        channel.writeAndFlush(msg);
+        return true;
+    }
+
+    public void remove(Channel channel) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            shard(loop).remove(channel);
+        } else {
+            loop.execute(() -> shard(loop).remove(channel));
+        }
+    }
+
+    /**
+     * 向客户端发送 PUSH_DATA 请求，客户端以带相同 correlationId 的 PUSH_DATA_BACK 确认后 future 完成
+     */
+    public CompletableFuture<MessageBase> request(String clientId, String payload, long timeoutMillis) {
+        return request(clientId, MessageBase.newBuilder()
+                .setClientId(clientId)
+                .setCmd(CommandType.PUSH_DATA)
+                .setData(payload)
+                .build(), timeoutMillis);
+    }
+
+    /**
+     * 向客户端（可以是逻辑 clientId）发送请求，correlationId 由服务端分配；
+     * 超时以 TimeoutException 失败，客户端不在线或连接断开时以 ClosedChannelException 失败，
+     * 排队的请求过多时以 RejectedExecutionException 失败。future 在连接的 EventLoop 中完成，回调中不要阻塞；
+     * 调用方可以在任意线程取消 future，取消的请求立即释放窗口
+     */
+    public CompletableFuture<MessageBase> request(String clientId, MessageBase msg, long timeoutMillis) {
+        CompletableFuture<MessageBase> future = new CompletableFuture<>();
+        Channel channel = get(clientId);
+        if (channel == null || !channel.isActive()) {
+            future.completeExceptionally(new ClosedChannelException());
+            return future;
+        }
+        MessageBase request = clientId.equals(msg.getClientId()) ? msg : msg.toBuilder().setClientId(clientId).build();
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            ClientRequests.getOrCreate(channel, maxInFlight, maxQueued).send(request, timeoutMillis, future);
+        } else {
+            try {
+                loop.execute(() -> ClientRequests.getOrCreate(channel, maxInFlight, maxQueued)
+                        .send(request, timeoutMillis, future));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
     }
 
+    /**
+     * 遍历所有 channel，不复制集合
+     */
+    public void forEach(Consumer<Channel> action) {
+        for (Shard shard : shards.values()) {
+            shard.byClientId.values().forEach(action);
+        }
+    }
+
+    /**
+     * 遍历某个分组下的 channel，不复制集合
+     */
+    public void forEachInGroup(String group, Consumer<Channel> action) {
+        for (Shard shard : shards.values()) {
+            shard.byGroup.getOrDefault(group, Collections.emptySet()).forEach(action);
+        }
+    }
+
+    /**
+     * 遍历某个 EventLoop 分片中的 channel，只能在该 EventLoop 中调用
+     */
+    public void forEachInEventLoop(EventLoop loop, Consumer<Channel> action) {
+        Shard shard = shards.get(loop);
+        if (shard != null) {
+            shard.byClientId.values().forEach(action);
+        }
+    }
+
+    /**
+     * 向所有连接广播
+     */
+    public void broadcast(MessageLite msg) {
+        broadcast(msg, null, null);
+    }
+
+    /**
+     * 向某个分组广播
+     */
+    public void broadcastToGroup(String group, MessageLite msg) {
+        broadcast(msg, group, null);
+    }
+
+    /**
+     * 向满足条件的连接广播，filter 在各 channel 所属的 EventLoop 中执行
+     */
+    public void broadcast(MessageLite msg, Predicate<Channel> filter) {
+        broadcast(msg, null, filter);
+    }
+
+    private void broadcast(MessageLite msg, String group, Predicate<Channel> filter) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        CommandType cmd = msg instanceof MessageBase ? ((MessageBase) msg).getCmd() : null;
+        ByteBuf frame = ProtobufFrames.encode(PooledByteBufAllocator.DEFAULT, msg);
+        try {
+            for (Map.Entry<EventLoop, Shard> e : shards.entrySet()) {
+                Shard shard = e.getValue();
+                // 每个 EventLoop 任务持有一个引用
+                ByteBuf shared = frame.retain();
+                try {
+                    e.getKey().execute(() -> {
+                        try {
+                            shard.broadcast(shared, cmd, group, filter);
+                        } finally {
+                            shared.release();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    shared.release();
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * 物理连接数
+     */
     public int size() {
-        return channelCache.size();
+        int size = 0;
+        for (Shard shard : shards.values()) {
+            size += shard.byClientId.size();
+        }
+        return size;
+    }
+
+    /**
+     * 挂载在多路复用连接上的逻辑 clientId 数
+     */
+    public int logicalSize() {
+        int size = 0;
+        for (Shard shard : shards.values()) {
+            size += shard.byLogicalId.size();
+        }
+        return size;
+    }
+
+    private Shard shard(EventLoop loop) {
+        return shards.computeIfAbsent(loop, l -> new Shard());
+    }
+
+    private static final class Entry {
+        private final String clientId;
+        private final String group;
+        private final SocketAddress remoteAddress;
+        // 挂载的逻辑 clientId，第一次挂载时创建，只在所属 EventLoop 中访问
+        private Set<String> logicalIds;
+
+        private Entry(String clientId, String group, SocketAddress remoteAddress) {
+            this.clientId = clientId;
+            this.group = group;
+            this.remoteAddress = remoteAddress;
+        }
+    }
+
+    /**
+     * 单个 EventLoop 的分片，所有写操作都在该 EventLoop 中执行
+     */
+    private static final class Shard {
+        private final Map<String, Channel> byClientId = new ConcurrentHashMap<>();
+        private final Map<SocketAddress, Channel> byRemoteAddress = new ConcurrentHashMap<>();
+        private final Map<String, Set<Channel>> byGroup = new ConcurrentHashMap<>();
+        private final Map<String, Channel> byLogicalId = new ConcurrentHashMap<>();
+        // 广播时待 flush 的 channel，只在本 EventLoop 中使用
+        private final List<Channel> pendingFlush = new ArrayList<>();
+
+        private void broadcast(ByteBuf frame, CommandType cmd, String group, Predicate<Channel> filter) {
+            Collection<Channel> targets = group == null
+                    ? byClientId.values() : byGroup.getOrDefault(group, Collections.emptySet());
+            for (Channel channel : targets) {
+                if (channel.isActive() && (filter == null || filter.test(channel))) {
+                    ProtobufFrames.write(channel, frame.duplicate().retain(), cmd);
+                    pendingFlush.add(channel);
+                }
+            }
+            for (Channel channel : pendingFlush) {
+                channel.flush();
+            }
+            pendingFlush.clear();
+        }
+
+        private void put(String clientId, Channel channel, String group) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            Attribute<Entry> attr = channel.attr(ENTRY);
+            Entry old = attr.get();
+            if (old != null) {
+                if (old.clientId.equals(clientId) && (group == null ? old.group == null : group.equals(old.group))) {
+                    return;
+                }
+                unindex(channel, old);
+            } else {
+                channel.closeFuture().addListener(future -> remove(channel));
+            }
+            Entry entry = new Entry(clientId, group, channel.remoteAddress());
+            if (old != null) {
+                // 重新注册不影响已挂载的逻辑 clientId
+                entry.logicalIds = old.logicalIds;
+            }
+            attr.set(entry);
+
+            byClientId.put(clientId, channel);
+            if (entry.remoteAddress != null) {
+                byRemoteAddress.put(entry.remoteAddress, channel);
+            }
+            if (group != null) {
+                byGroup.computeIfAbsent(group, g -> ConcurrentHashMap.newKeySet()).add(channel);
+            }
+        }
+
+        private void remove(Channel channel) {
+            Entry entry = channel.attr(ENTRY).getAndRemove();
+            if (entry != null) {
+                unindex(channel, entry);
+                unindexLogical(channel, entry);
+            }
+        }
+
+        private void attach(String logicalId, Channel channel) {
+            Entry entry = channel.attr(ENTRY).get();
+            if (entry == null || !channel.isOpen()) {
+                return;
+            }
+            if (entry.logicalIds == null) {
+                entry.logicalIds = new HashSet<>();
+            }
+            entry.logicalIds.add(logicalId);
+            byLogicalId.put(logicalId, channel);
+        }
+
+        private void detach(String logicalId, Channel channel) {
+            Entry entry = channel.attr(ENTRY).get();
+            if (entry != null && entry.logicalIds != null) {
+                entry.logicalIds.remove(logicalId);
+            }
+            byLogicalId.remove(logicalId, channel);
+        }
+
+        private void unindexLogical(Channel channel, Entry entry) {
+            if (entry.logicalIds != null) {
+                for (String logicalId : entry.logicalIds) {
+                    byLogicalId.remove(logicalId, channel);
+                }
+            }
+        }
+
+        private void unindex(Channel channel, Entry entry) {
+            byClientId.remove(entry.clientId, channel);
+            if (entry.remoteAddress != null) {
+                byRemoteAddress.remove(entry.remoteAddress, channel);
+            }
+            if (entry.group != null) {
+                Set<Channel> members = byGroup.get(entry.group);
+                if (members != null) {
+                    members.remove(channel);
+                    if (members.isEmpty()) {
+                        byGroup.remove(entry.group);
+                    }
+                }
+            }
+        }
     }
 }
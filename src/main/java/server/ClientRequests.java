@@ -0,0 +1,146 @@
+package server;
+
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import protobuf.Message.MessageBase;
+import util.PendingRequests;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 服务端向单个连接发起的请求，第一次请求时创建并挂在 channel 上，只在该 channel 的 EventLoop 中访问
+ * 1. 同时未完成的请求不超过 maxInFlight，超出的按顺序排队，排队数超过 maxQueued 时直接拒绝
+ * 2. 请求完成（响应、超时或失败）后从队列中补发，排队时间计入超时
+ * 3. 客户端以带相同 correlationId 的 PUSH_DATA_BACK 响应，见 SessionServerHandler
+ * 4. 连接关闭时未完成和排队中的请求都以 ClosedChannelException 失败
+ * 5. future 会交给调用方，可能在任意线程被取消或完成：完成回调总是回到 EventLoop 中释放窗口、补发，
+ *    外部完成的请求同时从未完成表中移除，排队中的直接跳过
+ */
+public final class ClientRequests {
+    private static final AttributeKey<ClientRequests> KEY = AttributeKey.valueOf("clientRequests");
+
+    private final Channel channel;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final PendingRequests<MessageBase> pending;
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+
+    private ClientRequests(Channel channel, int maxInFlight, int maxQueued) {
+        this.channel = channel;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = maxQueued;
+        this.pending = new PendingRequests<>(channel.eventLoop());
+    }
+
+    static ClientRequests getOrCreate(Channel channel, int maxInFlight, int maxQueued) {
+        Attribute<ClientRequests> attr = channel.attr(KEY);
+        ClientRequests requests = attr.get();
+        if (requests == null) {
+            requests = new ClientRequests(channel, maxInFlight, maxQueued);
+            attr.set(requests);
+            ClientRequests created = requests;
+            channel.closeFuture().addListener(future -> created.failAll());
+        }
+        return requests;
+    }
+
+    /**
+     * 用客户端的响应完成请求，没有对应的请求（已超时或从未发起）时返回 false
+     */
+    public static boolean complete(Channel channel, MessageBase response) {
+        ClientRequests requests = channel.attr(KEY).get();
+        return requests != null && requests.pending.complete(response.getCorrelationId(), response);
+    }
+
+    void send(MessageBase msg, long timeoutMillis, CompletableFuture<MessageBase> future) {
+        if (future.isDone()) {
+            // 提交到 EventLoop 之前已被调用方取消
+            return;
+        }
+        if (!channel.isActive()) {
+            future.completeExceptionally(new ClosedChannelException());
+            return;
+        }
+        if (pending.size() < maxInFlight && queue.isEmpty()) {
+            write(msg, timeoutMillis, future);
+        } else if (queue.size() < maxQueued) {
+            queue.add(new Queued(msg, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), future));
+        } else {
+            future.completeExceptionally(new RejectedExecutionException(
+                    "Too many requests queued for " + msg.getClientId() + ": " + maxQueued));
+        }
+    }
+
+    private void write(MessageBase msg, long timeoutMillis, CompletableFuture<MessageBase> future) {
+        int correlationId = pending.register(future, timeoutMillis);
+        // 完成时释放窗口；响应、超时在 EventLoop 中完成，调用方取消可能在其它线程
+        future.whenComplete((response, cause) -> {
+            if (channel.eventLoop().inEventLoop()) {
+                release(correlationId, future);
+            } else {
+                try {
+                    channel.eventLoop().execute(() -> release(correlationId, future));
+                } catch (RejectedExecutionException e) {
+                    // EventLoop 已关闭，连接关闭时未完成的请求已全部失败
+                }
+            }
+        });
+        channel.writeAndFlush(msg.toBuilder().setCorrelationId(correlationId).build()).addListener(f -> {
+            if (!f.isSuccess()) {
+                pending.fail(correlationId, f.cause());
+            }
+        });
+    }
+
+    private void release(int correlationId, CompletableFuture<MessageBase> future) {
+        pending.remove(correlationId, future);
+        drain();
+    }
+
+    private void drain() {
+        while (!queue.isEmpty() && pending.size() < maxInFlight) {
+            Queued next = queue.poll();
+            if (next.future.isDone()) {
+                // 排队期间被调用方取消
+                continue;
+            }
+            if (!channel.isActive()) {
+                next.future.completeExceptionally(new ClosedChannelException());
+                continue;
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(next.deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                next.future.completeExceptionally(new TimeoutException("Timed out in queue"));
+                continue;
+            }
+            write(next.msg, remainingMillis, next.future);
+        }
+    }
+
+    private void failAll() {
+        ClosedChannelException cause = new ClosedChannelException();
+        Queued queued;
+        while ((queued = queue.poll()) != null) {
+            queued.future.completeExceptionally(cause);
+        }
+        pending.failAll(cause);
+    }
+
+    private static final class Queued {
+        private final MessageBase msg;
+        private final long deadline;
+        private final CompletableFuture<MessageBase> future;
+
+        private Queued(MessageBase msg, long deadline, CompletableFuture<MessageBase> future) {
+            this.msg = msg;
+            this.deadline = deadline;
+            this.future = future;
+        }
+    }
+}
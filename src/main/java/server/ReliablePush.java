@@ -0,0 +1,209 @@
+package server;
+
+import io.netty.channel.Channel;
+import protobuf.Message.MessageBase;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可靠推送，只对协商了 codec.Features#RELIABLE_PUSH 的客户端生效
+ * 1. 每个 clientId 一个发件箱，推送按 clientId 分配连续的序号，发出后保留到客户端确认为止
+ * 2. 客户端以 PUSH_DATA_BACK 的 ack 字段累计确认，收到后丢弃序号不大于 ack 的推送
+ * 3. 发件箱不随连接关闭而删除：断线期间的推送照常进入窗口，重连认证时以客户端上报的 ack 对齐后按顺序重传；
+ *    断线超过 retainSeconds 仍未重连的发件箱被删除，之后的推送不再保留
+ * 4. 窗口有界，未确认的推送达到 window 条时拒绝新的推送，由调用方决定如何处理
+ * 5. 客户端发现序号不连续（出站队列丢弃了推送）时回复 NACK：PUSH_DATA_BACK 带上 ack 和缺失的第一个序号 seq，
+ *    服务端确认到 ack 后从 ack + 1 开始重传窗口中的全部推送；NACK 或重传再次丢失时由客户端定时重发 NACK
+ * 发件箱可能在不同连接的 EventLoop 和业务线程中访问，按发件箱加锁，推送在锁内写出以保证序号与写出顺序一致
+ */
+public class ReliablePush {
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+    private final int window;
+    private final long retainMillis;
+
+    public ReliablePush(int window, int retainSeconds) {
+        this.window = Math.max(1, window);
+        this.retainMillis = TimeUnit.SECONDS.toMillis(retainSeconds);
+    }
+
+    /**
+     * 认证时调用，按客户端已收到的最大连续序号对齐发件箱，返回双方继续使用的 ack（在 AUTH_BACK 中下发）
+     * 之后需要调用 {@link #attach} 绑定连接并重传
+     */
+    public long open(String clientId, long clientAck) {
+        Outbox outbox = outboxes.compute(clientId, (k, existing) -> {
+            if (existing == null) {
+                // 服务端没有记录（首次连接、重启或已过期）时以客户端的进度为起点
+                return new Outbox(clientAck);
+            }
+            // 占住发件箱，避免在 attach 之前被过期删除
+            existing.reserve();
+            return existing;
+        });
+        return outbox.resume(clientAck);
+    }
+
+    /**
+     * 在 AUTH_BACK 写出之后调用：把发件箱绑定到新连接，按顺序重传未确认的推送
+     */
+    public void attach(String clientId, Channel channel) {
+        Outbox outbox = outboxes.get(clientId);
+        if (outbox == null) {
+            return;
+        }
+        outbox.attach(channel);
+        channel.closeFuture().addListener(future -> detach(clientId, outbox, channel));
+    }
+
+    /**
+     * 可靠推送一条消息，消息的 seq 由发件箱分配；客户端离线但发件箱仍保留时只进入窗口，重连后发出
+     * 没有发件箱（客户端未协商或已过期）或窗口已满时返回 false
+     */
+    public boolean push(String clientId, MessageBase msg) {
+        Outbox outbox = outboxes.get(clientId);
+        return outbox != null && outbox.push(msg, window);
+    }
+
+    /**
+     * 处理客户端的累计确认
+     */
+    public void ack(String clientId, long ack) {
+        Outbox outbox = outboxes.get(clientId);
+        if (outbox != null) {
+            outbox.ack(ack);
+        }
+    }
+
+    /**
+     * 处理客户端的 NACK：先按 ack 确认，再从 ack + 1 开始重传
+     */
+    public void nack(String clientId, long ack) {
+        Outbox outbox = outboxes.get(clientId);
+        if (outbox != null) {
+            outbox.nack(ack);
+        }
+    }
+
+    /**
+     * 未确认的推送数，客户端没有发件箱时为 0
+     */
+    public int unacked(String clientId) {
+        Outbox outbox = outboxes.get(clientId);
+        return outbox == null ? 0 : outbox.unacked();
+    }
+
+    /**
+     * 发件箱数（在线和断线保留中的客户端）
+     */
+    public int size() {
+        return outboxes.size();
+    }
+
+    private void detach(String clientId, Outbox outbox, Channel channel) {
+        long generation = outbox.detach(channel);
+        if (generation < 0) {
+            // 已经绑定到了新连接
+            return;
+        }
+        channel.eventLoop().schedule(() -> {
+            outboxes.computeIfPresent(clientId, (k, current) ->
+                    current == outbox && outbox.isDetached(generation) ? null : current);
+        }, retainMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Outbox {
+        // 未确认的推送，第一条的序号为 acked + 1
+        private final ArrayDeque<MessageBase> unacked = new ArrayDeque<>();
+        private long acked;
+        private Channel channel;
+        // 每次认证 / 绑定加一，过期检查据此判断断线后是否有过重连
+        private long generation;
+
+        private Outbox(long acked) {
+            this.acked = acked;
+        }
+
+        private synchronized void reserve() {
+            generation++;
+        }
+
+        private synchronized long resume(long clientAck) {
+            trim(clientAck);
+            return acked;
+        }
+
+        private synchronized void attach(Channel channel) {
+            this.channel = channel;
+            generation++;
+            if (unacked.isEmpty()) {
+                return;
+            }
+            for (MessageBase msg : unacked) {
+                channel.write(msg);
+            }
+            channel.flush();
+        }
+
+        /**
+         * 返回断开时的 generation，连接已不是当前连接时返回 -1
+         */
+        private synchronized long detach(Channel channel) {
+            if (this.channel != channel) {
+                return -1;
+            }
+            this.channel = null;
+            return generation;
+        }
+
+        private synchronized boolean isDetached(long generation) {
+            return channel == null && this.generation == generation;
+        }
+
+        private synchronized boolean push(MessageBase msg, int window) {
+            if (unacked.size() >= window) {
+                return false;
+            }
+            MessageBase sequenced = msg.toBuilder().setSeq(acked + unacked.size() + 1).build();
+            unacked.add(sequenced);
+            if (channel != null && channel.isActive()) {
+                channel.writeAndFlush(sequenced);
+            }
+            return true;
+        }
+
+        private synchronized void ack(long ack) {
+            trim(ack);
+        }
+
+        private synchronized void nack(long ack) {
+            trim(ack);
+            if (unacked.isEmpty() || channel == null || !channel.isActive()) {
+                return;
+            }
+            // 第一条即 acked + 1，ack 落后于 acked 时客户端会把多出的部分当作重复丢弃
+            for (MessageBase msg : unacked) {
+                channel.write(msg);
+            }
+            channel.flush();
+        }
+
+        /**
+         * 丢弃序号不大于 ack 的推送，超出已发出范围的 ack 截断到最后一条
+         */
+        private void trim(long ack) {
+            long last = acked + unacked.size();
+            long target = Math.min(ack, last);
+            while (acked < target) {
+                unacked.poll();
+                acked++;
+            }
+        }
+
+        private synchronized int unacked() {
+            return unacked.size();
+        }
+    }
+}
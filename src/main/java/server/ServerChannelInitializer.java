@@ -1,21 +1,30 @@
 package server;
 
+import codec.CompactHeartbeat;
+import codec.HeartbeatFrameDecoder;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufEncoder;
-import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
-import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import protobuf.Message;
-import server.handler.IdleServerHandler;
+import server.codec.MessageBaseDecoder;
+import server.codec.ProtobufFrames;
+import protobuf.Command.CommandType;
+import server.executor.LogicExecutors;
+import server.handler.FlushConsolidationHandler;
+import server.handler.OutboundPolicy;
+import server.handler.OutboundQueueHandler;
+import server.handler.RateLimitHandler;
 
-import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
 
 /**
  * Socket初始化
@@ -23,10 +32,57 @@ import java.util.concurrent.TimeUnit;
 @Component
 @Qualifier("serverChannelInitializer")
 public class ServerChannelInitializer extends ChannelInitializer<SocketChannel> {
-    // 该变量只能在当前这个类中被使用，并且是带有 static 修饰的静态函数中被调用，且该属性的值将不能被改变。
-    private final static int READER_IDLE_TIME_SECONDS = 20;// 读操作空闲 20 秒
-    private final static int WRITER_IDLE_TIME_SECONDS = 20;// 写操作空闲 20 秒
-    private final static int ALL_IDLE_TIME_SECONDS = 40;// 读写全部空闲 40 秒
+    private static final MessageBaseDecoder MESSAGE_DECODER = new MessageBaseDecoder();
+
+    // 是否启用写批处理
+    @Value("${write.batch.enabled:true}")
+    private boolean writeBatchEnabled;
+
+    // 最多合并的 flush 次数
+    @Value("${write.batch.max.flushes:256}")
+    private int writeBatchMaxFlushes;
+
+    // 读循环之外的 flush 最长推迟时间（微秒），0 表示立即 flush
+    @Value("${write.batch.delay.micros:0}")
+    private long writeBatchDelayMicros;
+
+    // 连接不可写时出站队列最多缓存的消息数
+    @Value("${outbound.queue.max.messages:1024}")
+    private int outboundQueueMaxMessages;
+
+    // 各指令在连接不可写时的处理策略，如 PONG:DROP,PUSH_DATA:COALESCE
+    @Value("${outbound.queue.policies:}")
+    private String outboundQueuePolicies;
+
+    private Map<CommandType, OutboundPolicy> outboundPolicies;
+
+    // 按指令限流，格式为 指令:每秒令牌数:桶容量，如 PING:1:5
+    @Value("${rate.limit.rules:}")
+    private String rateLimitRules;
+
+    // 超限处理：DROP 丢弃 / PAUSE 暂停读取
+    @Value("${rate.limit.action:DROP}")
+    private RateLimitHandler.Action rateLimitAction;
+
+    private RateLimitHandler.Limits rateLimits;
+
+    // 业务 handler 运行的线程：IO / POOL / VIRTUAL，认证和心跳始终在 IO 线程处理
+    @Value("${logic.executor.mode:IO}")
+    private LogicExecutors.Mode logicExecutorMode;
+
+    @Value("${logic.executor.threads:16}")
+    private int logicExecutorThreads;
+
+    // 同一连接的消息是否按顺序处理
+    @Value("${logic.executor.ordered:true}")
+    private boolean logicExecutorOrdered;
+
+    private EventExecutorGroup logicExecutor;
+
+    // 空闲检测由共享的 LivenessEngine 完成，超时时间见 application.properties 中的 idle.*
+    @Autowired
+    @Qualifier("idleServerHandler")
+    private ChannelHandlerAdapter idleServerHandler;
 
     @Autowired
     @Qualifier("authServerHandler")
@@ -36,21 +92,45 @@ public class ServerChannelInitializer extends ChannelInitializer<SocketChannel>
     @Qualifier("logicServerHandler")
     private ChannelHandlerAdapter logicServerHandler;
 
+    @PostConstruct
+    public void init() {
+        outboundPolicies = OutboundPolicy.parse(outboundQueuePolicies);
+        rateLimits = RateLimitHandler.Limits.parse(rateLimitRules);
+        logicExecutor = LogicExecutors.create(logicExecutorMode, logicExecutorThreads, logicExecutorOrdered);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (logicExecutor != null) {
+            logicExecutor.shutdownGracefully();
+        }
+    }
+
     @Override
     protected void initChannel(SocketChannel socketChannel) throws Exception {
         ChannelPipeline p = socketChannel.pipeline();
 
-        p.addLast("idleStateHandler", new IdleStateHandler(READER_IDLE_TIME_SECONDS,
-                WRITER_IDLE_TIME_SECONDS, ALL_IDLE_TIME_SECONDS, TimeUnit.SECONDS));
-        p.addLast("idleTimeoutHandler", new IdleServerHandler());
+        if (writeBatchEnabled) {
+            p.addLast("flushConsolidation", new FlushConsolidationHandler(writeBatchMaxFlushes, writeBatchDelayMicros));
+        }
+        p.addLast("idleTimeoutHandler", idleServerHandler);
 
-        p.addLast(new ProtobufVarint32FrameDecoder());
-        p.addLast(new ProtobufDecoder(Message.MessageBase.getDefaultInstance()));
+        // 拆帧时直接识别紧凑心跳帧
+        p.addLast("frameDecoder", new HeartbeatFrameDecoder(CompactHeartbeat.PING));
+        // ping 在解码阶段短路，其它指令才完整解析
+        p.addLast("protobufDecoder", MESSAGE_DECODER);
 
-        p.addLast(new ProtobufVarint32LengthFieldPrepender());
-        p.addLast(new ProtobufEncoder());
+        // 预编码帧（广播等）直接写到 frameEncoder 之下，见 ProtobufFrames
+        p.addLast(ProtobufFrames.FRAME_ENCODER, new ProtobufVarint32LengthFieldPrepender());
+        p.addLast("protobufEncoder", new ProtobufEncoder());
+        // 连接不可写时按指令类型排队 / 合并 / 丢弃
+        p.addLast(OutboundQueueHandler.NAME, new OutboundQueueHandler(outboundQueueMaxMessages, outboundPolicies));
 
+        if (!rateLimits.isEmpty()) {
+            p.addLast("rateLimiter", new RateLimitHandler(rateLimits, rateLimitAction));
+        }
         p.addLast("authServerHandler", authServerHandler);
-        p.addLast("logicServerHandler", logicServerHandler);
+        // logicExecutor 为 null 时业务 handler 跑在 IO 线程上
+        p.addLast(logicExecutor, "logicServerHandler", logicServerHandler);
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+/**
+ * 认证通过后挂在 channel 上的会话，创建后不再修改
+ * 之后的每条消息都从 channel 属性中取会话，不再查 ChannelRepository
+ */
+public final class Session {
+    public static final AttributeKey<Session> KEY = AttributeKey.valueOf("session");
+    // 最近一次下发给客户端的心跳间隔（秒），随服务端负载变化，所以不放在不可变的会话中
+    public static final AttributeKey<Integer> HEARTBEAT_SECONDS = AttributeKey.valueOf("heartbeatSeconds");
+
+    private final String clientId;
+    private final String group;
+    private final int features;
+    private final boolean flaky;
+    private final ByteBuf pongFrame;
+    private final ByteBuf timedPongFrame;
+
+    public Session(String clientId, String group, int features, boolean flaky,
+                   ByteBuf pongFrame, ByteBuf timedPongFrame) {
+        this.clientId = clientId;
+        this.group = group;
+        this.features = features;
+        this.flaky = flaky;
+        this.pongFrame = pongFrame;
+        this.timedPongFrame = timedPongFrame;
+    }
+
+    /**
+     * 未认证时返回 null
+     */
+    public static Session get(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    public String clientId() {
+        return clientId;
+    }
+
+    /**
+     * 客户端所属分组，未声明时为 null
+     */
+    public String group() {
+        return group;
+    }
+
+    /**
+     * 协商结果，见 codec.Features
+     */
+    public int features() {
+        return features;
+    }
+
+    /**
+     * 认证时判定的不稳定客户端，使用最短的心跳间隔
+     */
+    public boolean flaky() {
+        return flaky;
+    }
+
+    /**
+     * 预编码的 pong 帧，写出时需要 duplicate
+     */
+    public ByteBuf pongFrame() {
+        return pongFrame;
+    }
+
+    /**
+     * 带 timestamp 字段的预编码 pong 帧，timestamp 为 fixed64 且位于帧末尾，回复时复制后改写最后 8 个字节
+     */
+    public ByteBuf timedPongFrame() {
+        return timedPongFrame;
+    }
+
+    @Override
+    public String toString() {
+        return clientId;
+    }
+}
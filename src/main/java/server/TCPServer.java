@@ -2,15 +2,37 @@ package server;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
 
 import javax.annotation.PreDestroy;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 停机分阶段进行，避免所有客户端同时断开后集中重连到其它节点：
+ * 1. 关闭监听 channel，不再接受新连接
+ * 2. 向每个已认证连接发送 RECONNECT，retryAfterMillis 在 [0, shutdown.reconnect.spread.millis) 中随机取值
+ * 3. 等待 RECONNECT 写出（写出即表示它之前排队的消息也已写出），最长 shutdown.drain.timeout.millis
+ * 4. 按 shutdown.close.batch.size 分批关闭连接，批次间隔 shutdown.close.batch.interval.millis
+ * 之后再由 Spring 关闭 boss / worker 线程组
+ */
 @Component
+@DependsOn({"bossGroup", "workerGroup"})
 public class TCPServer {
+    private static final Logger logger = LoggerFactory.getLogger(TCPServer.class);
+
     @Autowired
     @Qualifier("serverBootstrap")
     private ServerBootstrap serverBootstrap;
@@ -19,16 +41,95 @@ public class TCPServer {
     @Qualifier("tcpSocketAddress")
     private InetSocketAddress tcpPort;
 
-    private Channel serverChannel;
+    @Autowired
+    @Qualifier("tcpListenerCount")
+    private Integer listenerCount;
+
+    @Autowired
+    @Qualifier("channelRepository")
+    private ChannelRepository channelRepository;
+
+    // 客户端重连时间的随机分布范围（毫秒）
+    @Value("${shutdown.reconnect.spread.millis:30000}")
+    private int reconnectSpreadMillis;
+
+    // 建议客户端重连的地址 host:port，为空表示由客户端自行选择
+    @Value("${shutdown.reconnect.address:}")
+    private String reconnectAddress;
+
+    // 等待出站消息写出的最长时间（毫秒）
+    @Value("${shutdown.drain.timeout.millis:5000}")
+    private long drainTimeoutMillis;
+
+    @Value("${shutdown.close.batch.size:500}")
+    private int closeBatchSize;
 
+    @Value("${shutdown.close.batch.interval.millis:100}")
+    private long closeBatchIntervalMillis;
+
+    private final List<Channel> serverChannels = new ArrayList<>();
+
+    /**
+     * 绑定 listenerCount 个监听 channel（epoll + SO_REUSEPORT 时可大于 1），并阻塞直到全部关闭
+     */
     public void start() throws Exception {
-        serverChannel = serverBootstrap.bind(tcpPort).sync().channel().closeFuture().sync().channel();
+        for (int i = 0; i < listenerCount; i++) {
+            serverChannels.add(serverBootstrap.bind(tcpPort).sync().channel());
+        }
+        for (Channel serverChannel : serverChannels) {
+            serverChannel.closeFuture().sync();
+        }
     }
 
     @PreDestroy
     public void stop() throws Exception {
-        serverChannel.close();
-        serverChannel.parent().close();
+        // 1. 不再接受新连接
+        for (Channel serverChannel : serverChannels) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        List<Channel> channels = new ArrayList<>(channelRepository.size());
+        channelRepository.forEach(channels::add);
+        logger.info("Draining {} connections", channels.size());
+
+        // 2. 通知客户端稍后重连
+        List<ChannelFuture> notified = new ArrayList<>(channels.size());
+        for (Channel channel : channels) {
+            if (channel.isActive()) {
+                notified.add(channel.writeAndFlush(reconnect(channel)));
+            }
+        }
+
+        // 3. 等待出站消息写出
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+        for (ChannelFuture future : notified) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !future.awaitUninterruptibly(remaining, TimeUnit.NANOSECONDS)) {
+                logger.warn("Drain timed out, closing remaining connections");
+                break;
+            }
+        }
+
+        // 4. 分批关闭
+        for (int i = 0; i < channels.size(); i += closeBatchSize) {
+            int end = Math.min(i + closeBatchSize, channels.size());
+            for (Channel channel : channels.subList(i, end)) {
+                channel.close();
+            }
+            if (end < channels.size()) {
+                Thread.sleep(closeBatchIntervalMillis);
+            }
+        }
+        logger.info("Drained {} connections", channels.size());
+    }
+
+    private MessageBase reconnect(Channel channel) {
+        Session session = Session.get(channel);
+        return MessageBase.newBuilder()
+                .setClientId(session == null ? "" : session.clientId())
+                .setCmd(CommandType.RECONNECT)
+                .setData(reconnectAddress)
+                .setRetryAfterMillis(ThreadLocalRandom.current().nextInt(Math.max(1, reconnectSpreadMillis)))
+                .build();
     }
 
     public ServerBootstrap getServerBootstrap() {
@@ -46,4 +147,4 @@ public class TCPServer {
     public void setTcpPort(InetSocketAddress tcpPort) {
         this.tcpPort = tcpPort;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package server.codec;
+
+/**
+ * 解码阶段短路的心跳消息，不携带任何字段，在 pipeline 中以单例传递
+ */
+public enum Heartbeat {
+    PING
+}
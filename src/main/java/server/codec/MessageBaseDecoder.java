@@ -0,0 +1,142 @@
+package server.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import protobuf.Command;
+import protobuf.Message;
+
+import java.util.List;
+
+/**
+ * MessageBase 解码器，替代 ProtobufDecoder
+ * 先直接从 ByteBuf 中读取 cmd 字段（跳过 clientId 字符串，不做 UTF-8 解码）：
+ * 1. 不带 timestamp 的 PING 直接输出 {@link Heartbeat#PING}，不解析整条消息；
+ *    带 timestamp 的 PING 在原位置读取 timestamp 和 rttMicros，输出 {@link TimedPing}
+ * 2. 其它指令才完整解析为 {@link Message.MessageBase}
+ */
+@ChannelHandler.Sharable
+public class MessageBaseDecoder extends MessageToMessageDecoder<ByteBuf> {
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_FIXED64 = 1;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+    private static final int WIRETYPE_FIXED32 = 5;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        if (peekCmd(msg) == Command.CommandType.PING_VALUE) {
+            int timestampIndex = findField(msg, Message.MessageBase.TIMESTAMP_FIELD_NUMBER, WIRETYPE_FIXED64);
+            if (timestampIndex < 0) {
+                out.add(Heartbeat.PING);
+                return;
+            }
+            if (timestampIndex + 8 <= msg.writerIndex()) {
+                // fixed64 为小端
+                long timestamp = Long.reverseBytes(msg.getLong(timestampIndex));
+                out.add(new TimedPing(timestamp, peekVarint(msg, Message.MessageBase.RTTMICROS_FIELD_NUMBER)));
+                return;
+            }
+            // 帧被截断，交给完整解析报错
+        }
+
+        final byte[] array;
+        final int offset;
+        final int length = msg.readableBytes();
+        if (msg.hasArray()) {
+            array = msg.array();
+            offset = msg.arrayOffset() + msg.readerIndex();
+        } else {
+            array = new byte[length];
+            msg.getBytes(msg.readerIndex(), array, 0, length);
+            offset = 0;
+        }
+        out.add(Message.MessageBase.parser().parseFrom(array, offset, length));
+    }
+
+    /**
+     * 不移动 readerIndex，读取 cmd 字段的值，找不到或格式错误时返回 -1
+     */
+    static int peekCmd(ByteBuf buf) {
+        int index = findField(buf, Message.MessageBase.CMD_FIELD_NUMBER, WIRETYPE_VARINT);
+        return index < 0 || varintEnd(buf, index, buf.writerIndex()) < 0 ? -1 : varintValue(buf, index);
+    }
+
+    /**
+     * 不移动 readerIndex，读取 varint 字段的低 32 位，找不到或格式错误时返回 0（即 proto2 的默认值）
+     */
+    static int peekVarint(ByteBuf buf, int fieldNumber) {
+        int index = findField(buf, fieldNumber, WIRETYPE_VARINT);
+        return index < 0 || varintEnd(buf, index, buf.writerIndex()) < 0 ? 0 : varintValue(buf, index);
+    }
+
+    /**
+     * 不移动 readerIndex，返回字段值的起始位置，找不到、线类型不是 wireType 或格式错误时返回 -1
+     */
+    static int findField(ByteBuf buf, int fieldNumber, int wireType) {
+        int index = buf.readerIndex();
+        int end = buf.writerIndex();
+        while (index < end) {
+            int valueIndex = varintEnd(buf, index, end);
+            if (valueIndex < 0) {
+                return -1;
+            }
+            int tag = varintValue(buf, index);
+            index = valueIndex;
+            if (tag >>> 3 == fieldNumber) {
+                return (tag & 7) == wireType ? index : -1;
+            }
+            switch (tag & 7) {
+                case WIRETYPE_VARINT:
+                    index = varintEnd(buf, index, end);
+                    break;
+                case WIRETYPE_FIXED64:
+                    index += 8;
+                    break;
+                case WIRETYPE_LENGTH_DELIMITED:
+                    int lengthEnd = varintEnd(buf, index, end);
+                    if (lengthEnd < 0) {
+                        return -1;
+                    }
+                    index = lengthEnd + varintValue(buf, index);
+                    break;
+                case WIRETYPE_FIXED32:
+                    index += 4;
+                    break;
+                default:
+                    return -1;
+            }
+            if (index < 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 返回 index 处 varint 之后的位置，越界时返回 -1
+     */
+    private static int varintEnd(ByteBuf buf, int index, int end) {
+        for (int i = 0; i < 10 && index < end; i++) {
+            if (buf.getByte(index++) >= 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 读取 index 处 varint 的低 32 位
+     */
+    private static int varintValue(ByteBuf buf, int index) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buf.getByte(index++);
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package server.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ReferenceCountUtil;
+import protobuf.Command.CommandType;
+import server.handler.OutboundQueueHandler;
+
+import java.io.IOException;
+
+/**
+ * 预编码帧工具
+ * 把 protobuf 消息一次性编码成带 varint32 长度前缀的完整帧，之后直接写到 frameEncoder 之下，
+ * 跳过 ProtobufEncoder 和 ProtobufVarint32LengthFieldPrepender，可被多个 channel 共享
+ */
+public final class ProtobufFrames {
+    /**
+     * ServerChannelInitializer 中 ProtobufVarint32LengthFieldPrepender 的名字
+     */
+    public static final String FRAME_ENCODER = "frameEncoder";
+
+    private static final ByteBufAllocator HEAP_ALLOCATOR = new UnpooledByteBufAllocator(false);
+
+    private ProtobufFrames() {
+    }
+
+    /**
+     * 编码为 [varint32 长度][消息体]，调用方负责释放返回的 ByteBuf
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, MessageLite msg) {
+        int bodyLength = msg.getSerializedSize();
+        int frameLength = CodedOutputStream.computeUInt32SizeNoTag(bodyLength) + bodyLength;
+        ByteBuf buf = alloc.buffer(frameLength, frameLength);
+        try {
+            CodedOutputStream out = CodedOutputStream.newInstance(buf.nioBuffer(0, frameLength));
+            out.writeUInt32NoTag(bodyLength);
+            msg.writeTo(out);
+            out.flush();
+            buf.writerIndex(frameLength);
+            return buf;
+        } catch (IOException e) {
+            buf.release();
+            throw new IllegalStateException("Failed to encode " + msg.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * 编码为可长期缓存的帧：堆内存、不可释放，写出时使用 {@code frame.duplicate()}
+     */
+    public static ByteBuf encodeShared(MessageLite msg) {
+        return Unpooled.unreleasableBuffer(encode(HEAP_ALLOCATOR, msg));
+    }
+
+    /**
+     * 写出一个已编码的完整帧（不 flush），连接积压时交给 {@link OutboundQueueHandler} 按 cmd 的策略处理
+     */
+    public static void write(Channel channel, ByteBuf frame, CommandType cmd) {
+        OutboundQueueHandler queue = (OutboundQueueHandler) channel.pipeline().get(OutboundQueueHandler.NAME);
+        if (queue != null && queue.offerFrame(frame, cmd)) {
+            return;
+        }
+        write(channel, frame);
+    }
+
+    /**
+     * 写出一个已编码的完整帧（不 flush），frame 的所有权转移给 channel
+     */
+    public static void write(Channel channel, ByteBuf frame) {
+        ChannelHandlerContext ctx = channel.pipeline().context(FRAME_ENCODER);
+        if (ctx == null) {
+            // pipeline 已被拆除，连接正在关闭
+            ReferenceCountUtil.release(frame);
+            return;
+        }
+        ctx.write(frame, ctx.voidPromise());
+    }
+}
@@ -0,0 +1,28 @@
+package server.codec;
+
+/**
+ * 解码阶段短路的带 timestamp 的 PING，只取出回显和统计需要的两个字段，不解析整条消息
+ */
+public final class TimedPing {
+    private final long timestamp;
+    private final int rttMicros;
+
+    public TimedPing(long timestamp, int rttMicros) {
+        this.timestamp = timestamp;
+        this.rttMicros = rttMicros;
+    }
+
+    /**
+     * 客户端发送时刻（微秒），在 pong 中原样带回
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 客户端上报的上一次往返时间（微秒），没有上报时为 0
+     */
+    public int rttMicros() {
+        return rttMicros;
+    }
+}
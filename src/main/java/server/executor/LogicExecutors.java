@@ -0,0 +1,60 @@
+package server.executor;
+
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ThreadPerTaskExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 创建业务 handler 使用的 EventExecutorGroup
+ * 1. IO：不单独创建，业务 handler 直接跑在 IO 线程上
+ * 2. POOL：平台线程池
+ * 3. VIRTUAL：虚拟线程（JDK 21+），不可用时退回平台线程池
+ * ordered 为 true 时每个连接绑定到一个单线程 executor，同一连接的消息按顺序处理；
+ * 为 false 时每条消息单独提交，同一连接的消息可能并发处理
+ */
+public final class LogicExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(LogicExecutors.class);
+
+    public enum Mode {
+        IO, POOL, VIRTUAL
+    }
+
+    private LogicExecutors() {
+    }
+
+    /**
+     * IO 模式返回 null
+     */
+    public static EventExecutorGroup create(Mode mode, int threads, boolean ordered) {
+        if (mode == Mode.IO) {
+            return null;
+        }
+        ExecutorService virtual = mode == Mode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null;
+        if (ordered) {
+            // 每个子 executor 占用一个线程（虚拟模式下为虚拟线程）跑自己的任务队列
+            return virtual != null
+                    ? new DefaultEventExecutorGroup(threads, virtual)
+                    : new DefaultEventExecutorGroup(threads, new ThreadPerTaskExecutor(new DefaultThreadFactory("logic")));
+        }
+        return new UnorderedEventExecutor(virtual != null
+                ? virtual : Executors.newFixedThreadPool(threads, new DefaultThreadFactory("logic")));
+    }
+
+    /**
+     * 编译目标是 1.8，通过反射调用 Executors.newVirtualThreadPerTaskExecutor
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads are not available on this JDK, fall back to platform threads");
+            return null;
+        }
+    }
+}
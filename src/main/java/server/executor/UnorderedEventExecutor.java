@@ -0,0 +1,98 @@
+package server.executor;
+
+import io.netty.util.concurrent.AbstractEventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把任务直接交给底层线程池的 EventExecutor，不保证顺序
+ * 绑定到 pipeline 后，同一个连接的事件（包括 userEventTriggered）可能在不同线程上并发、乱序执行，
+ * handler 必须是无状态的，依赖事件顺序的处理应放在 IO 线程上的 handler 中
+ */
+public final class UnorderedEventExecutor extends AbstractEventExecutor {
+    private final ExecutorService delegate;
+    private final Promise<?> terminationFuture = GlobalEventExecutor.INSTANCE.newPromise();
+    private volatile boolean shuttingDown;
+
+    public UnorderedEventExecutor(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean inEventLoop(Thread thread) {
+        // 没有固定的线程，事件一律提交到线程池
+        return false;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(command);
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    @Override
+    public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        shutdownDelegate();
+        GlobalEventExecutor.INSTANCE.execute(() -> {
+            try {
+                delegate.awaitTermination(timeout, unit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                delegate.shutdownNow();
+                terminationFuture.trySuccess(null);
+            }
+        });
+        return terminationFuture;
+    }
+
+    @Override
+    public Future<?> terminationFuture() {
+        return terminationFuture;
+    }
+
+    /**
+     * @deprecated 使用 {@link #shutdownGracefully}
+     */
+    @Deprecated
+    @Override
+    public void shutdown() {
+        shutdownDelegate();
+    }
+
+    /**
+     * 与父类相同，等待关闭完成，但不声明受检异常
+     */
+    @Override
+    public void close() {
+        shutdownGracefully().syncUninterruptibly();
+    }
+
+    private void shutdownDelegate() {
+        shuttingDown = true;
+        delegate.shutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -1,26 +1,39 @@
 package server.handler;
 
+import codec.DeflateFrameCompression;
+import codec.Features;
+import com.google.protobuf.ByteString;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.util.Attribute;
-import io.netty.util.AttributeKey;
 import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import protobuf.Command;
 import protobuf.Message;
 import server.ChannelRepository;
+import server.ReliablePush;
+import server.Session;
+import server.codec.ProtobufFrames;
+import server.liveness.HeartbeatIntervalPolicy;
+import server.liveness.LivenessEngine;
 
 /**
  * 连接认证 Handler
  * 1. 连接成功后客户端发送 CommandType.AUTH 指令，Sever 端验证通过后返回 CommandType.AUTH_BACK 指令
- * 2. 处理心跳指令
- * 3. 触发下一个 Handler
+ * 2. 认证通过后在 channel 上挂一个不可变的 Session（含预编码的 pong 帧），并把自己替换为 SessionServerHandler，
+ *    之后的消息不再经过认证逻辑，也不再查 ChannelRepository
+ * 3. AUTH_BACK 中下发服务端决定的心跳间隔，见 {@link HeartbeatIntervalPolicy}
+ * 4. 协商了 deflate 压缩时，回复 AUTH_BACK 后在 pipeline 中装上压缩 / 解压 handler
+ * 5. 认证前收到的其它消息（包括心跳）直接丢弃并关闭连接
+ * 6. 协商了多路复用时，认证的 clientId 为网关自身，子设备之后通过 ATTACH 挂载，见 {@link SessionServerHandler}；
+ *    认证的 clientId 已作为逻辑 clientId 挂载在网关上时由本连接接管，并向网关发送 DETACH
+ * 7. 协商了可靠推送时，按 AUTH 中客户端的 ack 对齐发件箱，在 AUTH_BACK 中下发双方继续使用的 ack，之后重传未确认的推送
  */
 @Component
 @Qualifier("authServerHandler")
@@ -28,43 +41,119 @@ import server.ChannelRepository;
 public class AuthServerHandler extends ChannelHandlerAdapter {
     private Logger log = LoggerFactory.getLogger(this.getClass());
 
-    private final AttributeKey<String> clientInfo = AttributeKey.valueOf("clientInfo");
+    @Value("${compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    // 是否允许网关在一个连接上挂载多个逻辑 clientId
+    @Value("${multiplex.enabled:false}")
+    private boolean multiplexEnabled;
+
+    @Value("${push.reliable.enabled:false}")
+    private boolean reliablePushEnabled;
+
+    @Autowired
+    @Qualifier("reliablePush")
+    private ReliablePush reliablePush;
+
+    @Autowired
+    @Qualifier("frameCompression")
+    private DeflateFrameCompression frameCompression;
 
     @Autowired
     @Qualifier("channelRepository")
     private ChannelRepository channelRepository;
 
+    @Autowired
+    @Qualifier("heartbeatIntervalPolicy")
+    private HeartbeatIntervalPolicy heartbeatIntervalPolicy;
+
+    @Autowired
+    @Qualifier("livenessEngine")
+    private LivenessEngine livenessEngine;
+
+    @Autowired
+    @Qualifier("sessionServerHandler")
+    private SessionServerHandler sessionServerHandler;
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof Message.MessageBase)
+                || ((Message.MessageBase) msg).getCmd() != Command.CommandType.AUTH) {
+            // 未认证，拒绝
+            log.warn("Not authenticated, close {}", ctx.channel().remoteAddress());
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+            return;
+        }
         Message.MessageBase msgBase = (Message.MessageBase) msg;
         String clientId = msgBase.getClientId();
+        log.info("我是验证处理逻辑");
+
+        int features = msgBase.getFeatures() & supportedFeatures();
+        String group = msgBase.hasGroup() ? msgBase.getGroup() : null;
+        Message.MessageBase.Builder pong = createData(clientId, Command.CommandType.PONG, "This is pong data");
+        boolean flaky = heartbeatIntervalPolicy.isFlaky(clientId);
+        ctx.attr(Session.KEY).set(new Session(clientId, group, features, flaky,
+                ProtobufFrames.encodeShared(pong.build()),
+                ProtobufFrames.encodeShared(pong.setTimestamp(0).build())));
+        channelRepository.put(clientId, ctx.channel(), group);
+        Channel gateway = channelRepository.takeOver(clientId, ctx.channel());
+        if (gateway != null && gateway.isActive()) {
+            gateway.writeAndFlush(Message.MessageBase.newBuilder()
+                    .setClientId(clientId)
+                    .setCmd(Command.CommandType.DETACH)
+                    .setData("Taken over")
+                    .build());
+        }
+        ctx.channel().closeFuture().addListener(future -> heartbeatIntervalPolicy.onDisconnect(clientId));
 
-        Channel ch = channelRepository.get(clientId);
-        if (null == ch) {
-            ch = ctx.channel();
-            channelRepository.put(clientId, ch);
+        int heartbeatSeconds = heartbeatIntervalPolicy.intervalSeconds(flaky);
+        ctx.attr(Session.HEARTBEAT_SECONDS).set(heartbeatSeconds);
+        livenessEngine.expectInterval(ctx.channel(), heartbeatSeconds);
+        Message.MessageBase.Builder authBack = createData(clientId, Command.CommandType.AUTH_BACK, "This is response data")
+                .setFeatures(features)
+                .setHeartbeatSeconds(heartbeatSeconds);
+        if (msgBase.hasCorrelationId()) {
+            authBack.setCorrelationId(msgBase.getCorrelationId());
+        }
+        if (Features.isNegotiated(features, Features.DEFLATE)) {
+            authBack.setDictionary(ByteString.copyFrom(frameCompression.dictionary()));
+        }
+        boolean reliable = Features.isNegotiated(features, Features.RELIABLE_PUSH);
+        if (reliable) {
+            authBack.setAck(reliablePush.open(clientId, msgBase.getAck()));
+        }
+        ctx.writeAndFlush(authBack.build());
+        if (Features.isNegotiated(features, Features.DEFLATE)) {
+            // AUTH_BACK 已经以明文写出，之后的帧才启用压缩
+            frameCompression.install(ctx.pipeline(), "frameDecoder", ProtobufFrames.FRAME_ENCODER);
         }
-        // 认证处理
-        if (msgBase.getCmd().equals(Command.CommandType.AUTH)) {
-            log.info("我是验证处理逻辑");
-            Attribute<String> attr = ctx.attr(clientInfo);
-            attr.set(clientId);
-            channelRepository.put(clientId, ctx.channel());
-
-            ctx.writeAndFlush(createData(clientId, Command.CommandType.AUTH_BACK, "This is response data").build());
-        } else if (msgBase.getCmd().equals(Command.CommandType.PING)) {
-            // 处理 ping 消息
-            ctx.writeAndFlush(createData(clientId, Command.CommandType.PONG, "This is pong data").build());
-        } else {
-            if (ch.isOpen()) {
-                // 触发下一个 handler
-                ctx.fireChannelRead(msg);
-                log.info("我进入业务处理逻辑");
-            }
+        // 认证只做一次，之后的消息直接进入会话处理
+        ctx.pipeline().replace(this, SessionServerHandler.NAME, sessionServerHandler);
+        if (reliable) {
+            // 在 AUTH_BACK 之后、按压缩后的 pipeline 重传
+            reliablePush.attach(clientId, ctx.channel());
         }
         ReferenceCountUtil.release(msg);
     }
 
+    /**
+     * 服务端支持的协商能力
+     */
+    private int supportedFeatures() {
+        int features = Features.COMPACT_HEARTBEAT;
+        if (compressionEnabled) {
+            features |= Features.DEFLATE;
+        }
+        if (multiplexEnabled) {
+            features |= Features.MULTIPLEX;
+        }
+        if (reliablePushEnabled) {
+            features |= Features.RELIABLE_PUSH;
+        }
+        return features;
+    }
+
     private Message.MessageBase.Builder createData(String clientId, Command.CommandType cmd, String data) {
         Message.MessageBase.Builder msg = Message.MessageBase.newBuilder();
         msg.setClientId(clientId);
@@ -72,4 +161,4 @@ public class AuthServerHandler extends ChannelHandlerAdapter {
         msg.setData(data);
         return msg;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package server.handler;
+
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写批处理 Handler，放在 pipeline 最前面（最靠近 socket）
+ * 1. 读循环中（channelRead 到 channelReadComplete 之间）产生的 flush 全部推迟到 channelReadComplete 统一执行
+ * 2. 读循环之外的 flush，配置了 flushDelayMicros 时延迟合并，否则立即执行
+ * 3. 累计推迟的 flush 次数达到 maxPendingFlushes 时立即 flush
+ * 每个连接一个实例，只在所属 EventLoop 中访问
+ */
+public class FlushConsolidationHandler extends ChannelHandlerAdapter {
+    private final int maxPendingFlushes;
+    private final long flushDelayMicros;
+
+    private ChannelHandlerContext ctx;
+    private int pendingFlushes;
+    private boolean readInProgress;
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final Runnable flushTask = () -> {
+        scheduledFlush = null;
+        if (pendingFlushes > 0 && !readInProgress) {
+            flushNow(ctx);
+        }
+    };
+
+    /**
+     * @param maxPendingFlushes 最多合并的 flush 次数
+     * @param flushDelayMicros  读循环之外的 flush 最长推迟时间，0 表示不推迟
+     */
+    public FlushConsolidationHandler(int maxPendingFlushes, long flushDelayMicros) {
+        if (maxPendingFlushes <= 0) {
+            throw new IllegalArgumentException("maxPendingFlushes: " + maxPendingFlushes + " (expected: > 0)");
+        }
+        this.maxPendingFlushes = maxPendingFlushes;
+        this.flushDelayMicros = Math.max(0, flushDelayMicros);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        flushIfNeeded(ctx);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (readInProgress) {
+            // 读循环结束时统一 flush
+            if (++pendingFlushes >= maxPendingFlushes) {
+                flushNow(ctx);
+            }
+        } else if (flushDelayMicros > 0) {
+            if (++pendingFlushes >= maxPendingFlushes) {
+                flushNow(ctx);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = ctx.channel().eventLoop().schedule(flushTask, flushDelayMicros, TimeUnit.MICROSECONDS);
+            }
+        } else {
+            flushNow(ctx);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        // 先让后面的 handler 处理 readComplete，它们产生的 flush 也合并到这一次
+        ctx.fireChannelReadComplete();
+        readInProgress = false;
+        flushIfNeeded(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            // 出站缓冲区已满，尽快把数据写出去
+            flushIfNeeded(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushIfNeeded(ctx);
+        ctx.close(promise);
+    }
+
+    private void flushIfNeeded(ChannelHandlerContext ctx) {
+        if (pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pendingFlushes = 0;
+        ctx.flush();
+    }
+}
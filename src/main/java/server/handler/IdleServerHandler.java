@@ -1,50 +1,48 @@
 package server.handler;
 
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.timeout.IdleState;
-import io.netty.handler.timeout.IdleStateEvent;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.netty.channel.ChannelPromise;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import server.liveness.LivenessEngine;
 
 /**
  * 连接空闲 Handler
+ * 不再为每个连接创建 IdleStateHandler 定时任务，只负责把连接的读写时间上报给共享的 {@link LivenessEngine}，
+ * 读超时计数和关闭连接由引擎按 EventLoop 批量完成
  */
 @Component
+@Qualifier("idleServerHandler")
+@ChannelHandler.Sharable
 public class IdleServerHandler extends ChannelHandlerAdapter {
-    private Logger logger = LoggerFactory.getLogger(this.getClass());
+    @Autowired
+    @Qualifier("livenessEngine")
+    private LivenessEngine livenessEngine;
 
-    // 失败计数器：未收到client端发送的ping请求
-    private int unRecPingTimes = 0;
-    // 定义服务端没有收到心跳消息的最大次数
-    private static final int MAX_UN_REC_PING_TIMES = 3;
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        livenessEngine.register(ctx.channel());
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        livenessEngine.unregister(ctx.channel());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        livenessEngine.touchRead(ctx.channel());
+        ctx.fireChannelRead(msg);
+    }
 
     @Override
-    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
-        if (evt instanceof IdleStateEvent) {
-            IdleStateEvent event = (IdleStateEvent) evt;
-            if (event.state() == IdleState.READER_IDLE) {
-                // 读超时
-                logger.debug(ctx.channel().remoteAddress() + " 超时类型：read idle");
-                // 失败计数器次数大于等于3次的时候，关闭链接，等待client重连
-                if (unRecPingTimes >= MAX_UN_REC_PING_TIMES) {
-                    System.out.println("===服务端===(读超时，关闭chanel)");
-                    // 连续超过N次未收到client的ping消息，那么关闭该通道，等待client重连
-                    ctx.channel().close();
-                } else {
-                    // 失败计数器加1
-                    unRecPingTimes++;
-                }
-            } else if (event.state() == IdleState.WRITER_IDLE) {
-                // 写超时
-                logger.debug(ctx.channel().remoteAddress() + " 超时类型：write idle");
-            } else if (event.state() == IdleState.ALL_IDLE) {
-                // 总超时
-                logger.debug(ctx.channel().remoteAddress() + " 超时类型：all idle");
-            }
-        } else {
-            super.userEventTriggered(ctx, evt);
-        }
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        livenessEngine.touchWrite(ctx.channel());
+        ctx.write(msg, promise);
     }
 }
@@ -1,14 +1,10 @@
 package server.handler;
 
-import io.netty.channel.ChannelFuture;
+import codec.Features;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.util.Attribute;
-import io.netty.util.AttributeKey;
 import io.netty.util.ReferenceCountUtil;
-import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.GenericFutureListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,9 +14,14 @@ import protobuf.Command.CommandType;
 import protobuf.Message;
 import protobuf.Message.MessageBase;
 import server.ChannelRepository;
+import server.ReliablePush;
+import server.Session;
 
 /**
  * 业务逻辑 handler
+ * 请求带 correlationId 时，确认消息中原样带回，客户端据此匹配响应
+ * 发给协商了可靠推送的连接自身的推送经 {@link ReliablePush} 发出，客户端确认前保留在窗口中；
+ * 逻辑 clientId（网关子设备）和未协商的客户端仍直接写出
  */
 @Component
 @Qualifier("logicServerHandler")
@@ -28,53 +29,100 @@ import server.ChannelRepository;
 public class LogicServerHandler extends ChannelHandlerAdapter {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private final AttributeKey<String> clientInfo = AttributeKey.valueOf("clientInfo");
-
     @Autowired
     @Qualifier("channelRepository")
     private ChannelRepository channelRepository;
 
+    @Autowired
+    @Qualifier("reliablePush")
+    private ReliablePush reliablePush;
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         Message.MessageBase msgBase = (Message.MessageBase)msg;
 
-        logger.info(msgBase.getData());
-
-        ChannelFuture cf = ctx.writeAndFlush(
-                MessageBase.newBuilder()
-                        .setClientId(msgBase.getClientId())
-                        .setCmd(CommandType.UPLOAD_DATA_BACK)
-                        .setData("This is upload data back msg")
-                        .build()
-        );
-		// 上一条消息发送成功后，立马推送一条消息
-        cf.addListener(new GenericFutureListener<Future<? super Void>>() {
-            @Override
-            public void operationComplete(Future<? super Void> future) throws Exception {
-                if (future.isSuccess()){
-                    ctx.writeAndFlush(
-                            MessageBase.newBuilder()
-                                    .setClientId(msgBase.getClientId())
-                                    .setCmd(CommandType.PUSH_DATA)
-                                    .setData("This is a push msg")
-                                    .build()
-                    );
-                }
+        if (msgBase.getCmd() == CommandType.UPLOAD_BATCH) {
+            // 批量上传：逐条处理，只回复一个累计确认和一条推送
+            for (MessageBase entry : msgBase.getBatchList()) {
+                handleUpload(entry);
+            }
+            ctx.write(
+                    reply(msgBase)
+                            .setCmd(CommandType.UPLOAD_BATCH_BACK)
+                            .setData(String.valueOf(msgBase.getBatchCount()))
+                            .build()
+            );
+        } else {
+            handleUpload(msgBase);
+            ctx.write(
+                    reply(msgBase)
+                            .setCmd(CommandType.UPLOAD_DATA_BACK)
+                            .setData("This is upload data back msg")
+                            .build()
+            );
+        }
+        // 紧跟着推送一条消息，两条消息在同一次 flush 中发出
+        MessageBase push = MessageBase.newBuilder()
+                .setClientId(msgBase.getClientId())
+                .setCmd(CommandType.PUSH_DATA)
+                .setData("This is a push msg")
+                .build();
+        if (isReliable(ctx, msgBase.getClientId())) {
+            ctx.flush();
+            if (!reliablePush.push(msgBase.getClientId(), push)) {
+                logger.warn("Push window full, drop push to {}", msgBase.getClientId());
             }
-        });
+        } else {
+            ctx.writeAndFlush(push);
+        }
         ReferenceCountUtil.release(msg);
     }
 
+    private static boolean isReliable(ChannelHandlerContext ctx, String clientId) {
+        Session session = Session.get(ctx.channel());
+        return session != null && Features.isNegotiated(session.features(), Features.RELIABLE_PUSH)
+                && session.clientId().equals(clientId);
+    }
+
+    /**
+     * 确认消息，带回请求的 correlationId
+     */
+    private static MessageBase.Builder reply(MessageBase request) {
+        MessageBase.Builder reply = MessageBase.newBuilder().setClientId(request.getClientId());
+        if (request.hasCorrelationId()) {
+            reply.setCorrelationId(request.getCorrelationId());
+        }
+        return reply;
+    }
+
+    /**
+     * 处理单条上传数据
+     */
+    private void handleUpload(MessageBase msgBase) {
+        logger.info(msgBase.getData());
+    }
+
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        ctx.fireChannelReadComplete();
+    }
 
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        // 读取已由 OutboundQueueHandler 在 EventLoop 中暂停 / 恢复，这里只记录；
+        // 无序业务线程池下两个事件可能乱序到达，不能在这里切换读取状态
+        if (evt == SlowConsumerEvent.SLOW) {
+            logger.warn("Slow consumer, reading paused: " + Session.get(ctx.channel()));
+        } else if (evt == SlowConsumerEvent.RECOVERED) {
+            logger.info("Slow consumer recovered, reading resumed: " + Session.get(ctx.channel()));
+        } else {
+            super.userEventTriggered(ctx, evt);
+        }
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        Attribute<String> attr = ctx.attr(clientInfo);
-        String clientId = attr.get();
-        logger.error("Connection closed, client is " + clientId);
+        logger.error("Connection closed, client is " + Session.get(ctx.channel()));
         cause.printStackTrace();
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package server.handler;
+
+import protobuf.Command.CommandType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 连接不可写（出站缓冲区超过高水位）时，某类指令的处理策略
+ */
+public enum OutboundPolicy {
+    /**
+     * 进入有界队列，等连接恢复可写后按顺序发送
+     */
+    QUEUE,
+    /**
+     * 直接丢弃，例如过期就没有意义的 pong
+     */
+    DROP,
+    /**
+     * 队列中只保留同类指令的最新一条，新消息替换旧消息在队列中的位置
+     */
+    COALESCE;
+
+    /**
+     * 解析形如 "PONG:DROP,PUSH_DATA:COALESCE" 的配置，未配置的指令使用 QUEUE
+     */
+    public static Map<CommandType, OutboundPolicy> parse(String spec) {
+        Map<CommandType, OutboundPolicy> policies = new EnumMap<>(CommandType.class);
+        if (spec == null || spec.trim().isEmpty()) {
+            return policies;
+        }
+        for (String item : spec.split(",")) {
+            String[] pair = item.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid outbound policy: " + item);
+            }
+            policies.put(CommandType.valueOf(pair[0].trim()), OutboundPolicy.valueOf(pair[1].trim()));
+        }
+        return policies;
+    }
+}
@@ -0,0 +1,189 @@
+package server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import server.codec.ProtobufFrames;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * 有界出站队列 Handler，放在 protobufEncoder 和业务 handler 之间，按 {@link CommandType} 区分处理策略
+ * 1. 连接可写且队列为空时直接透传，不产生任何额外对象
+ * 2. 连接不可写（超过 WRITE_BUFFER_HIGH_WATER_MARK）时按 {@link OutboundPolicy} 入队、合并或丢弃
+ * 3. 队列满时丢弃新消息，暂停读取该连接（{@link ReadSuspension#SLOW_CONSUMER}），并向后面的 handler 发送 {@link SlowConsumerEvent#SLOW}；
+ *    排空后恢复读取并发送 {@link SlowConsumerEvent#RECOVERED}。暂停 / 恢复在 EventLoop 中按顺序进行，
+ *    不依赖后面的 handler 收到事件的顺序（业务 handler 可能跑在不保证顺序的线程池上）
+ * 4. 预编码帧（pong、广播）通过 {@link #offerFrame} 进入同一个队列
+ * 每个连接一个实例，只在所属 EventLoop 中访问
+ */
+public class OutboundQueueHandler extends ChannelHandlerAdapter {
+    public static final String NAME = "outboundQueue";
+
+    private static final IllegalStateException QUEUE_FULL = new IllegalStateException("outbound queue full");
+    private static final IllegalStateException DROPPED = new IllegalStateException("dropped while channel unwritable");
+    private static final IllegalStateException SUPERSEDED = new IllegalStateException("superseded by a newer message");
+    private static final IllegalStateException CLOSED = new IllegalStateException("channel closed");
+
+    static {
+        QUEUE_FULL.setStackTrace(new StackTraceElement[0]);
+        DROPPED.setStackTrace(new StackTraceElement[0]);
+        SUPERSEDED.setStackTrace(new StackTraceElement[0]);
+        CLOSED.setStackTrace(new StackTraceElement[0]);
+    }
+
+    private final int maxMessages;
+    private final Map<CommandType, OutboundPolicy> policies;
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private ChannelHandlerContext ctx;
+    private boolean slow;
+
+    /**
+     * @param maxMessages 队列最多缓存的消息数
+     * @param policies    各指令的策略，未配置的指令使用 {@link OutboundPolicy#QUEUE}，多个连接共享只读
+     */
+    public OutboundQueueHandler(int maxMessages, Map<CommandType, OutboundPolicy> policies) {
+        this.maxMessages = maxMessages;
+        this.policies = policies;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (queue.isEmpty() && ctx.channel().isWritable()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        CommandType cmd = msg instanceof MessageBase ? ((MessageBase) msg).getCmd() : null;
+        enqueue(msg, cmd, false, promise);
+    }
+
+    /**
+     * 预编码帧的写入入口
+     *
+     * @return true 表示帧已被队列接管（入队或丢弃），false 表示连接可写，调用方应直接写出
+     */
+    public boolean offerFrame(ByteBuf frame, CommandType cmd) {
+        if (queue.isEmpty() && ctx.channel().isWritable()) {
+            return false;
+        }
+        enqueue(frame, cmd, true, null);
+        return true;
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            drain(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseAll();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseAll();
+    }
+
+    public int queuedMessages() {
+        return queue.size();
+    }
+
+    private void enqueue(Object msg, CommandType cmd, boolean preEncoded, ChannelPromise promise) {
+        OutboundPolicy policy = cmd == null ? OutboundPolicy.QUEUE : policies.getOrDefault(cmd, OutboundPolicy.QUEUE);
+        if (policy == OutboundPolicy.DROP) {
+            discard(msg, promise, DROPPED);
+            return;
+        }
+        if (policy == OutboundPolicy.COALESCE) {
+            // 原地替换，保持新消息在原消息的位置，不越过之后入队的消息
+            for (Pending pending : queue) {
+                if (pending.cmd == cmd) {
+                    discard(pending.msg, pending.promise, SUPERSEDED);
+                    pending.replace(msg, preEncoded, promise);
+                    return;
+                }
+            }
+        }
+        if (queue.size() >= maxMessages) {
+            discard(msg, promise, QUEUE_FULL);
+            if (!slow) {
+                slow = true;
+                ReadSuspension.suspend(ctx.channel(), ReadSuspension.SLOW_CONSUMER);
+                ctx.fireUserEventTriggered(SlowConsumerEvent.SLOW);
+            }
+            return;
+        }
+        queue.add(new Pending(msg, cmd, preEncoded, promise));
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        if (queue.isEmpty()) {
+            return;
+        }
+        Pending pending;
+        while (ctx.channel().isWritable() && (pending = queue.poll()) != null) {
+            if (pending.preEncoded) {
+                ProtobufFrames.write(ctx.channel(), (ByteBuf) pending.msg);
+            } else {
+                ctx.write(pending.msg, pending.promise);
+            }
+        }
+        ctx.flush();
+        if (queue.isEmpty() && slow) {
+            slow = false;
+            ReadSuspension.resume(ctx.channel(), ReadSuspension.SLOW_CONSUMER);
+            ctx.fireUserEventTriggered(SlowConsumerEvent.RECOVERED);
+        }
+    }
+
+    private void releaseAll() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            discard(pending.msg, pending.promise, CLOSED);
+        }
+    }
+
+    private void discard(Object msg, ChannelPromise promise, Throwable cause) {
+        ReferenceCountUtil.release(msg);
+        // voidPromise 失败会触发 exceptionCaught，丢弃消息不应被当作连接异常
+        if (promise != null && promise != ctx.voidPromise()) {
+            promise.tryFailure(cause);
+        }
+    }
+
+    private static final class Pending {
+        private final CommandType cmd;
+        private Object msg;
+        private boolean preEncoded;
+        private ChannelPromise promise;
+
+        private Pending(Object msg, CommandType cmd, boolean preEncoded, ChannelPromise promise) {
+            this.msg = msg;
+            this.cmd = cmd;
+            this.preEncoded = preEncoded;
+            this.promise = promise;
+        }
+
+        private void replace(Object msg, boolean preEncoded, ChannelPromise promise) {
+            this.msg = msg;
+            this.preEncoded = preEncoded;
+            this.promise = promise;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package server.handler;
+
+import codec.CompactHeartbeat;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import server.codec.Heartbeat;
+import server.codec.TimedPing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按指令类型限流的 Handler，放在 authServerHandler 之前
+ * 令牌桶用 GCRA（理论到达时间）实现：每个指令只需一个 long，判断和更新都是几次整数运算，不分配对象；
+ * 每个连接一个实例，只在所属 EventLoop 中访问，无需加锁
+ * 超限时按 {@link Action} 丢弃该帧，或暂停读取直到桶中重新有令牌
+ */
+public class RateLimitHandler extends ChannelHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitHandler.class);
+
+    public enum Action {
+        /**
+         * 丢弃超限的帧
+         */
+        DROP,
+        /**
+         * 处理当前帧，但关闭 autoRead，等到下一个令牌可用时再恢复
+         */
+        PAUSE
+    }
+
+    private final Limits limits;
+    private final Action action;
+    // 各指令的理论到达时间（纳秒），下标为 CommandType.ordinal()
+    private final long[] theoreticalArrivalTimes;
+    private boolean paused;
+
+    public RateLimitHandler(Limits limits, Action action) {
+        this.limits = limits;
+        this.action = action;
+        this.theoreticalArrivalTimes = new long[limits.intervalNanos.length];
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        CommandType cmd = commandOf(msg);
+        if (cmd == null) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        int index = cmd.ordinal();
+        long interval = limits.intervalNanos[index];
+        if (interval == 0) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        long now = System.nanoTime();
+        long tat = Math.max(theoreticalArrivalTimes[index], now);
+        long waitNanos = tat - limits.burstNanos[index] - now;
+        if (waitNanos <= 0) {
+            theoreticalArrivalTimes[index] = tat + interval;
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        // 超限
+        if (action == Action.DROP) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rate limit exceeded, drop {} from {}", cmd, ctx.channel().remoteAddress());
+            }
+            ReferenceCountUtil.release(msg);
+        } else {
+            theoreticalArrivalTimes[index] = tat + interval;
+            pause(ctx, waitNanos);
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private void pause(ChannelHandlerContext ctx, long waitNanos) {
+        if (paused) {
+            return;
+        }
+        paused = true;
+        logger.warn("Rate limit exceeded, pause reading {} for {} ms",
+                ctx.channel().remoteAddress(), TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        ReadSuspension.suspend(ctx.channel(), ReadSuspension.RATE_LIMIT);
+        ctx.channel().eventLoop().schedule(() -> {
+            paused = false;
+            // 出站队列仍积压时继续暂停，见 ReadSuspension
+            ReadSuspension.resume(ctx.channel(), ReadSuspension.RATE_LIMIT);
+        }, waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static CommandType commandOf(Object msg) {
+        if (msg instanceof MessageBase) {
+            return ((MessageBase) msg).getCmd();
+        }
+        if (msg == Heartbeat.PING || msg == CompactHeartbeat.PING || msg instanceof TimedPing) {
+            return CommandType.PING;
+        }
+        return null;
+    }
+
+    /**
+     * 各指令的限流配置，多个连接共享只读
+     */
+    public static final class Limits {
+        private final long[] intervalNanos;
+        private final long[] burstNanos;
+
+        private Limits(long[] intervalNanos, long[] burstNanos) {
+            this.intervalNanos = intervalNanos;
+            this.burstNanos = burstNanos;
+        }
+
+        public boolean isEmpty() {
+            for (long interval : intervalNanos) {
+                if (interval != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 解析形如 "PING:1:5,UPLOAD_DATA:100:200" 的配置，含义为 指令:每秒令牌数:桶容量，未配置的指令不限流
+         */
+        public static Limits parse(String spec) {
+            int size = CommandType.values().length;
+            long[] intervalNanos = new long[size];
+            long[] burstNanos = new long[size];
+            if (spec != null && !spec.trim().isEmpty()) {
+                for (String item : spec.split(",")) {
+                    String[] parts = item.trim().split(":");
+                    if (parts.length != 3) {
+                        throw new IllegalArgumentException("Invalid rate limit: " + item);
+                    }
+                    int index = CommandType.valueOf(parts[0].trim()).ordinal();
+                    double permitsPerSecond = Double.parseDouble(parts[1].trim());
+                    int burst = Integer.parseInt(parts[2].trim());
+                    if (permitsPerSecond <= 0 || burst < 1) {
+                        throw new IllegalArgumentException("Invalid rate limit: " + item);
+                    }
+                    intervalNanos[index] = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+                    // 桶容量 burst 表示允许在理论到达时间之前提前 burst - 1 个间隔
+                    burstNanos[index] = intervalNanos[index] * (burst - 1);
+                }
+            }
+            return new Limits(intervalNanos, burstNanos);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package server.handler;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+/**
+ * 暂停读取的原因，按位记录在 channel 属性上
+ * 多个 handler 都可能关闭 autoRead，各自只设置 / 清除自己的原因位，所有原因都清除后才恢复读取
+ * 修改在 channel 所属的 EventLoop 中进行，其它线程调用时提交到 EventLoop
+ */
+public final class ReadSuspension {
+    /**
+     * 出站队列积压，见 {@link SlowConsumerEvent}
+     */
+    public static final int SLOW_CONSUMER = 1;
+    /**
+     * 超过限流速率，见 {@link RateLimitHandler.Action#PAUSE}
+     */
+    public static final int RATE_LIMIT = 1 << 1;
+
+    private static final AttributeKey<Integer> REASONS = AttributeKey.valueOf("readSuspendReasons");
+
+    private ReadSuspension() {
+    }
+
+    public static void suspend(Channel channel, int reason) {
+        update(channel, reason, true);
+    }
+
+    public static void resume(Channel channel, int reason) {
+        update(channel, reason, false);
+    }
+
+    private static void update(Channel channel, int reason, boolean suspend) {
+        EventLoop loop = channel.eventLoop();
+        if (!loop.inEventLoop()) {
+            loop.execute(() -> update(channel, reason, suspend));
+            return;
+        }
+        Attribute<Integer> attr = channel.attr(REASONS);
+        Integer current = attr.get();
+        int before = current == null ? 0 : current;
+        int after = suspend ? before | reason : before & ~reason;
+        if (after == before) {
+            return;
+        }
+        attr.set(after == 0 ? null : after);
+        // 只在没有原因和有原因之间切换时修改 autoRead
+        if (before == 0) {
+            channel.config().setAutoRead(false);
+        } else if (after == 0) {
+            channel.config().setAutoRead(true);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package server.handler;
+
+import codec.CompactHeartbeat;
+import codec.Features;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Attribute;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import server.ChannelRepository;
+import server.ClientRequests;
+import server.ReliablePush;
+import server.Session;
+import server.codec.Heartbeat;
+import server.codec.ProtobufFrames;
+import server.codec.TimedPing;
+import server.liveness.HeartbeatIntervalPolicy;
+import server.liveness.LivenessEngine;
+import server.metrics.HeartbeatMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 已认证连接的 Handler，认证通过后由 AuthServerHandler 替换上来
+ * 1. 心跳直接写出会话中预编码的 pong 帧；带 timestamp 的 ping（解码阶段已短路为 {@link TimedPing}）
+ *    在预编码帧上改写时间戳后回复，并记录上报的往返时间
+ * 2. 服务端心跳间隔变化后，下一次 pong 改为带新间隔的完整 pong，之后恢复预编码帧
+ * 3. 每个心跳都作为到达间隔样本上报给 {@link LivenessEngine}
+ * 4. 协商了多路复用时，通过 ATTACH / DETACH 在连接上挂载 / 解除逻辑 clientId（网关下的子设备），
+ *    之后只转发 clientId 为本连接或已挂载逻辑 clientId 的消息；心跳仍按连接进行
+ * 5. 带 correlationId 的 PUSH_DATA_BACK 是客户端对服务端请求的确认，直接完成对应的请求，见 {@link ClientRequests}
+ * 6. 带 ack 的 PUSH_DATA_BACK 是可靠推送的累计确认，同时带 seq 的是 NACK，见 {@link ReliablePush}
+ * 7. 其它消息直接交给下一个 handler，不再查 ChannelRepository
+ */
+@Component
+@Qualifier("sessionServerHandler")
+@ChannelHandler.Sharable
+public class SessionServerHandler extends ChannelHandlerAdapter {
+    public static final String NAME = "sessionServerHandler";
+
+    private Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    @Qualifier("heartbeatMetrics")
+    private HeartbeatMetrics heartbeatMetrics;
+
+    @Autowired
+    @Qualifier("heartbeatIntervalPolicy")
+    private HeartbeatIntervalPolicy heartbeatIntervalPolicy;
+
+    @Autowired
+    @Qualifier("livenessEngine")
+    private LivenessEngine livenessEngine;
+
+    @Autowired
+    @Qualifier("channelRepository")
+    private ChannelRepository channelRepository;
+
+    @Autowired
+    @Qualifier("reliablePush")
+    private ReliablePush reliablePush;
+
+    // 每个多路复用连接最多挂载的逻辑 clientId 数
+    @Value("${multiplex.max.logical.ids:1000}")
+    private int maxLogicalIds;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg == CompactHeartbeat.PING) {
+            livenessEngine.heartbeat(ctx.channel());
+            if (!writeIntervalPong(ctx, null)) {
+                // 紧凑心跳，原样回复一个紧凑心跳帧
+                ProtobufFrames.write(ctx.channel(), CompactHeartbeat.frame(), CommandType.PONG);
+                ctx.flush();
+            }
+            return;
+        }
+        if (msg == Heartbeat.PING || msg instanceof TimedPing) {
+            // 解码阶段已短路的 ping
+            onPing(ctx, msg == Heartbeat.PING ? null : (TimedPing) msg);
+            return;
+        }
+        MessageBase msgBase = (MessageBase) msg;
+        CommandType cmd = msgBase.getCmd();
+        if (cmd == CommandType.PING) {
+            // 未经 MessageBaseDecoder 短路的 ping
+            onPing(ctx, msgBase.hasTimestamp() ? new TimedPing(msgBase.getTimestamp(), msgBase.getRttMicros()) : null);
+        } else if (cmd == CommandType.AUTH) {
+            // 会话不可变，重复认证直接忽略
+            log.warn("Already authenticated, ignore AUTH from {}", Session.get(ctx.channel()));
+        } else if (cmd == CommandType.ATTACH) {
+            attach(ctx, msgBase);
+        } else if (cmd == CommandType.DETACH) {
+            detach(ctx, msgBase);
+        } else if (cmd == CommandType.PUSH_DATA_BACK && msgBase.hasAck()) {
+            String clientId = Session.get(ctx.channel()).clientId();
+            if (msgBase.hasSeq()) {
+                reliablePush.nack(clientId, msgBase.getAck());
+            } else {
+                reliablePush.ack(clientId, msgBase.getAck());
+            }
+        } else if (cmd == CommandType.PUSH_DATA_BACK && msgBase.hasCorrelationId()) {
+            if (!ClientRequests.complete(ctx.channel(), msgBase)) {
+                log.debug("No pending request {} for {}", msgBase.getCorrelationId(), msgBase.getClientId());
+            }
+        } else if (isRoutable(ctx.channel(), msgBase.getClientId())) {
+            // 触发下一个 handler
+            ctx.fireChannelRead(msg);
+            return;
+        } else {
+            log.warn("Drop {} from unattached client {} on {}", cmd, msgBase.getClientId(), Session.get(ctx.channel()));
+        }
+        ReferenceCountUtil.release(msg);
+    }
+
+    /**
+     * 非多路复用连接不检查 clientId，与原来的行为一致
+     */
+    private boolean isRoutable(Channel channel, String clientId) {
+        Session session = Session.get(channel);
+        return !Features.isNegotiated(session.features(), Features.MULTIPLEX)
+                || session.clientId().equals(clientId)
+                || channelRepository.isAttached(channel, clientId);
+    }
+
+    /**
+     * 挂载逻辑 clientId，回复一个 ATTACH_BACK 列出挂载成功的 clientId；超过上限的、以及是其它连接主 clientId 的
+     * 用 DETACH 拒绝（条目的 data 为原因）；已作为逻辑 clientId 挂载在其它连接上的由本连接接管，并通知原连接
+     */
+    private void attach(ChannelHandlerContext ctx, MessageBase msg) {
+        Channel channel = ctx.channel();
+        Session session = Session.get(channel);
+        if (!Features.isNegotiated(session.features(), Features.MULTIPLEX)) {
+            log.warn("Multiplex not negotiated, ignore ATTACH from {}", session);
+            return;
+        }
+        MessageBase.Builder back = MessageBase.newBuilder()
+                .setClientId(session.clientId())
+                .setCmd(CommandType.ATTACH_BACK);
+        if (msg.hasCorrelationId()) {
+            back.setCorrelationId(msg.getCorrelationId());
+        }
+        MessageBase.Builder rejected = null;
+        for (String logicalId : logicalIds(msg)) {
+            if (logicalId.isEmpty() || logicalId.equals(session.clientId())) {
+                continue;
+            }
+            String reason = null;
+            if (channelRepository.isClientId(logicalId)) {
+                // 独立连接的设备不能被网关接管
+                reason = "Client id in use";
+            } else if (!channelRepository.isAttached(channel, logicalId)
+                    && channelRepository.logicalCount(channel) >= maxLogicalIds) {
+                reason = "Too many logical clients";
+            }
+            if (reason != null) {
+                if (rejected == null) {
+                    rejected = MessageBase.newBuilder()
+                            .setClientId(session.clientId())
+                            .setCmd(CommandType.DETACH)
+                            .setData("Rejected");
+                }
+                rejected.addBatch(entry(logicalId, CommandType.DETACH).setData(reason));
+                continue;
+            }
+            Channel previous = channelRepository.attach(logicalId, channel);
+            if (previous != null && previous.isActive()) {
+                previous.writeAndFlush(entry(logicalId, CommandType.DETACH).setData("Taken over").build());
+            }
+            back.addBatch(entry(logicalId, CommandType.ATTACH));
+        }
+        ctx.write(back.build());
+        if (rejected != null) {
+            log.warn("{} reject {} logical clients (limit {})", session, rejected.getBatchCount(), maxLogicalIds);
+            ctx.write(rejected.build());
+        }
+        ctx.flush();
+    }
+
+    private void detach(ChannelHandlerContext ctx, MessageBase msg) {
+        for (String logicalId : logicalIds(msg)) {
+            channelRepository.detach(logicalId, ctx.channel());
+        }
+    }
+
+    /**
+     * batch 为空时为 clientId 本身，否则为 batch 中每个条目的 clientId
+     */
+    private static Iterable<String> logicalIds(MessageBase msg) {
+        if (msg.getBatchCount() == 0) {
+            return Collections.singletonList(msg.getClientId());
+        }
+        List<String> ids = new ArrayList<>(msg.getBatchCount());
+        for (MessageBase entry : msg.getBatchList()) {
+            ids.add(entry.getClientId());
+        }
+        return ids;
+    }
+
+    private static MessageBase.Builder entry(String clientId, CommandType cmd) {
+        return MessageBase.newBuilder().setClientId(clientId).setCmd(cmd);
+    }
+
+    /**
+     * ping 为 null 表示不带 timestamp
+     */
+    private void onPing(ChannelHandlerContext ctx, TimedPing ping) {
+        livenessEngine.heartbeat(ctx.channel());
+        if (ping != null) {
+            recordRtt(ctx, ping);
+        }
+        if (!writeIntervalPong(ctx, ping)) {
+            if (ping != null) {
+                writeTimedPong(ctx, ping);
+            } else {
+                writePong(ctx);
+            }
+        }
+    }
+
+    private void recordRtt(ChannelHandlerContext ctx, TimedPing ping) {
+        if (ping.rttMicros() > 0) {
+            heartbeatMetrics.record(Session.get(ctx.channel()).group(), ping.rttMicros());
+        }
+    }
+
+    /**
+     * 心跳间隔与上次下发的不同时，回复一个带新间隔的完整 pong（ping 带 timestamp 时一并回显），返回 true；
+     * 间隔没变时返回 false，由调用方走预编码帧
+     */
+    private boolean writeIntervalPong(ChannelHandlerContext ctx, TimedPing ping) {
+        Session session = Session.get(ctx.channel());
+        int interval = heartbeatIntervalPolicy.intervalSeconds(session.flaky());
+        Attribute<Integer> advertised = ctx.attr(Session.HEARTBEAT_SECONDS);
+        Integer last = advertised.get();
+        if (last != null && last == interval) {
+            return false;
+        }
+        advertised.set(interval);
+        livenessEngine.expectInterval(ctx.channel(), interval);
+        MessageBase.Builder pong = MessageBase.newBuilder()
+                .setClientId(session.clientId())
+                .setCmd(CommandType.PONG)
+                .setData("This is pong data")
+                .setHeartbeatSeconds(interval);
+        if (ping != null) {
+            pong.setTimestamp(ping.timestamp());
+        }
+        ctx.writeAndFlush(pong.build());
+        return true;
+    }
+
+    /**
+     * 在 pong 中回显 ping 的 timestamp
+     */
+    private void writeTimedPong(ChannelHandlerContext ctx, TimedPing ping) {
+        Session session = Session.get(ctx.channel());
+        ByteBuf template = session.timedPongFrame();
+        int length = template.readableBytes();
+        ByteBuf pong = ctx.alloc().buffer(length);
+        pong.writeBytes(template, template.readerIndex(), length);
+        // fixed64 为小端
+        pong.setLong(length - 8, Long.reverseBytes(ping.timestamp()));
+        ProtobufFrames.write(ctx.channel(), pong, CommandType.PONG);
+        ctx.flush();
+    }
+
+    private void writePong(ChannelHandlerContext ctx) {
+        ProtobufFrames.write(ctx.channel(), Session.get(ctx.channel()).pongFrame().duplicate(), CommandType.PONG);
+        ctx.flush();
+    }
+}
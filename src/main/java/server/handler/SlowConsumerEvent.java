@@ -0,0 +1,15 @@
+package server.handler;
+
+/**
+ * 慢消费者事件，由 {@link OutboundQueueHandler} 通过 userEventTriggered 通知后面的业务 handler
+ */
+public enum SlowConsumerEvent {
+    /**
+     * 出站队列已满，之后的消息开始被丢弃
+     */
+    SLOW,
+    /**
+     * 出站队列已排空，连接恢复正常
+     */
+    RECOVERED
+}
@@ -0,0 +1,155 @@
+package server.liveness;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import server.ChannelRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 服务端决定的心跳间隔
+ * 1. 连接数越多间隔越长：interval = base * sqrt(connections / referenceConnections)，心跳总量随连接数亚线性增长
+ * 2. EventLoop 延迟超过 lagReference 后间隔越长：再乘以 lag / lagReference；延迟取各 EventLoop 最大值的指数平均，
+ *    低于 lagReference 的抖动不影响间隔，避免间隔来回变化导致频繁下发
+ * 3. 不稳定的客户端（上次断开后 flakyWindow 内重连）使用最短间隔，尽快发现断线
+ * 结果限制在 [min, max] 之间，由定时任务计算，收发心跳时只读取一个 volatile 字段
+ * 每个 worker EventLoop 上有一个探测任务，实际执行时间与计划时间之差即为该 EventLoop 的延迟
+ */
+public class HeartbeatIntervalPolicy {
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatIntervalPolicy.class);
+    // 延迟指数平均的权重
+    private static final double LAG_SMOOTHING = 0.2;
+
+    private final EventLoopGroup workerGroup;
+    private final ChannelRepository channelRepository;
+    private final int baseSeconds;
+    private final int minSeconds;
+    private final int maxSeconds;
+    private final int referenceConnections;
+    private final long lagReferenceNanos;
+    private final long flakyWindowNanos;
+    private final long sampleNanos;
+
+    // 最近一次探测到的各 EventLoop 延迟
+    private final AtomicLongArray lags;
+    // clientId -> 最近一次断开的时间
+    private final Map<String, Long> disconnectTimes = new ConcurrentHashMap<>();
+    private final List<ScheduledFuture<?>> probes = new ArrayList<>();
+
+    private volatile int intervalSeconds;
+    // 平滑后的延迟，只在第一个 EventLoop 中读写
+    private double smoothedLagNanos;
+
+    public HeartbeatIntervalPolicy(EventLoopGroup workerGroup, ChannelRepository channelRepository,
+                                   int baseSeconds, int minSeconds, int maxSeconds, int referenceConnections,
+                                   long lagReferenceMillis, int flakyWindowSeconds, long sampleMillis) {
+        this.workerGroup = workerGroup;
+        this.channelRepository = channelRepository;
+        this.baseSeconds = baseSeconds;
+        this.minSeconds = minSeconds;
+        this.maxSeconds = Math.max(minSeconds, maxSeconds);
+        this.referenceConnections = Math.max(1, referenceConnections);
+        this.lagReferenceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, lagReferenceMillis));
+        this.flakyWindowNanos = TimeUnit.SECONDS.toNanos(flakyWindowSeconds);
+        this.sampleNanos = TimeUnit.MILLISECONDS.toNanos(sampleMillis);
+        this.lags = new AtomicLongArray(workerGroup.children().size());
+        this.intervalSeconds = clamp(baseSeconds);
+    }
+
+    public void start() {
+        int index = 0;
+        for (EventExecutor loop : workerGroup.children()) {
+            probes.add(loop.scheduleAtFixedRate(new LagProbe(index, index == 0), sampleNanos, sampleNanos,
+                    TimeUnit.NANOSECONDS));
+            index++;
+        }
+    }
+
+    public void stop() {
+        for (ScheduledFuture<?> probe : probes) {
+            probe.cancel(false);
+        }
+    }
+
+    /**
+     * 当前对普通客户端的心跳间隔（秒）
+     */
+    public int intervalSeconds() {
+        return intervalSeconds;
+    }
+
+    /**
+     * 对某个会话的心跳间隔（秒）
+     */
+    public int intervalSeconds(boolean flaky) {
+        return flaky ? minSeconds : intervalSeconds;
+    }
+
+    /**
+     * 认证时调用：上次断开后 flakyWindow 内重连的客户端视为不稳定
+     */
+    public boolean isFlaky(String clientId) {
+        Long disconnected = disconnectTimes.remove(clientId);
+        return disconnected != null && System.nanoTime() - disconnected < flakyWindowNanos;
+    }
+
+    /**
+     * 已认证的连接断开时调用
+     */
+    public void onDisconnect(String clientId) {
+        disconnectTimes.put(clientId, System.nanoTime());
+    }
+
+    private void recompute() {
+        long lag = 0;
+        for (int i = 0; i < lags.length(); i++) {
+            lag = Math.max(lag, lags.get(i));
+        }
+        double loadFactor = Math.max(1, Math.sqrt((double) channelRepository.size() / referenceConnections));
+        smoothedLagNanos = smoothedLagNanos * (1 - LAG_SMOOTHING) + lag * LAG_SMOOTHING;
+        double lagFactor = Math.max(1, smoothedLagNanos / lagReferenceNanos);
+        int interval = clamp((int) Math.round(baseSeconds * loadFactor * lagFactor));
+        if (interval != intervalSeconds) {
+            logger.info("Heartbeat interval {}s -> {}s (connections={}, lag={}ms)", intervalSeconds, interval,
+                    channelRepository.size(), TimeUnit.NANOSECONDS.toMillis((long) smoothedLagNanos));
+            intervalSeconds = interval;
+        }
+        // 清理窗口之外的断开记录
+        long expired = System.nanoTime() - flakyWindowNanos;
+        disconnectTimes.values().removeIf(time -> time < expired);
+    }
+
+    private int clamp(int seconds) {
+        return Math.min(maxSeconds, Math.max(minSeconds, seconds));
+    }
+
+    private final class LagProbe implements Runnable {
+        private final int index;
+        // 由第一个 EventLoop 上的探测顺带重新计算间隔
+        private final boolean recompute;
+        private long expected = System.nanoTime() + sampleNanos;
+
+        private LagProbe(int index, boolean recompute) {
+            this.index = index;
+            this.recompute = recompute;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            lags.set(index, Math.max(0, now - expected));
+            expected += sampleNanos;
+            if (recompute) {
+                recompute();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package server.liveness;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 连接存活检测引擎
+ * 替代每个连接各自的 IdleStateHandler：每个 EventLoop 只有一个 {@link LivenessWheel} 和一个定时任务，
+ * 连接注册到自己所属 EventLoop 的时间轮上，每个时间轮使用 policyFactory 创建的独立 {@link LivenessPolicy}
+ */
+public class LivenessEngine {
+    private static final AttributeKey<Registration> REGISTRATION = AttributeKey.valueOf("livenessRegistration");
+
+    private final long readerIdleNanos;
+    private final long writerIdleNanos;
+    private final long checkPeriodNanos;
+    private final int ticksPerWheel;
+    private final Supplier<LivenessPolicy> policyFactory;
+
+    private final Map<EventLoop, LivenessWheel> wheels = new ConcurrentHashMap<>();
+
+    public LivenessEngine(int readerIdleSeconds, int writerIdleSeconds, int checkSeconds, int ticksPerWheel,
+                          Supplier<LivenessPolicy> policyFactory) {
+        this.readerIdleNanos = TimeUnit.SECONDS.toNanos(readerIdleSeconds);
+        this.writerIdleNanos = TimeUnit.SECONDS.toNanos(writerIdleSeconds);
+        this.checkPeriodNanos = TimeUnit.SECONDS.toNanos(checkSeconds);
+        this.ticksPerWheel = ticksPerWheel;
+        this.policyFactory = policyFactory;
+    }
+
+    /**
+     * 在 channel 所属的 EventLoop 中调用
+     */
+    public void register(Channel channel) {
+        Attribute<Registration> attr = channel.attr(REGISTRATION);
+        if (attr.get() != null) {
+            return;
+        }
+        LivenessWheel wheel = wheels.computeIfAbsent(channel.eventLoop(),
+                loop -> new LivenessWheel(loop, readerIdleNanos, writerIdleNanos, checkPeriodNanos, ticksPerWheel,
+                        policyFactory.get()));
+        attr.set(new Registration(wheel, wheel.register(channel)));
+    }
+
+    public void unregister(Channel channel) {
+        Registration registration = channel.attr(REGISTRATION).getAndRemove();
+        if (registration != null) {
+            registration.wheel.unregister(registration.slot);
+        }
+    }
+
+    public void touchRead(Channel channel) {
+        Registration registration = channel.attr(REGISTRATION).get();
+        if (registration != null) {
+            registration.wheel.touchRead(registration.slot);
+        }
+    }
+
+    /**
+     * 收到心跳，除刷新读时间外还作为到达间隔样本交给策略
+     */
+    public void heartbeat(Channel channel) {
+        Registration registration = channel.attr(REGISTRATION).get();
+        if (registration != null) {
+            registration.wheel.heartbeat(registration.slot);
+        }
+    }
+
+    /**
+     * 向该连接下发了新的心跳间隔
+     */
+    public void expectInterval(Channel channel, int heartbeatSeconds) {
+        Registration registration = channel.attr(REGISTRATION).get();
+        if (registration != null) {
+            registration.wheel.expectInterval(registration.slot, TimeUnit.SECONDS.toNanos(heartbeatSeconds));
+        }
+    }
+
+    public void touchWrite(Channel channel) {
+        Registration registration = channel.attr(REGISTRATION).get();
+        if (registration != null) {
+            registration.wheel.touchWrite(registration.slot);
+        }
+    }
+
+    /**
+     * 当前被检测的连接数（跨线程读取，仅用于统计）
+     */
+    public int size() {
+        int size = 0;
+        for (LivenessWheel wheel : wheels.values()) {
+            size += wheel.size();
+        }
+        return size;
+    }
+
+    private static final class Registration {
+        private final LivenessWheel wheel;
+        private final int slot;
+
+        private Registration(LivenessWheel wheel, int slot) {
+            this.wheel = wheel;
+            this.slot = slot;
+        }
+    }
+}
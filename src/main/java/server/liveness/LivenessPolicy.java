@@ -0,0 +1,32 @@
+package server.liveness;
+
+/**
+ * 连接存活判定策略，每个 {@link LivenessWheel} 一个实例，只在该 EventLoop 中使用
+ * 每个连接的状态按 slot 保存在策略自己的基本类型数组中，slot 与时间轮一致
+ */
+public interface LivenessPolicy {
+    /**
+     * 时间轮扩容时调用，capacity 为新的 slot 数
+     */
+    void grow(int capacity);
+
+    /**
+     * 连接注册到 slot 上
+     */
+    void register(int slot, long now);
+
+    /**
+     * 收到心跳，lastReadTime 为这次心跳之前最后一次收到任何数据的时间
+     */
+    void heartbeat(int slot, long now, long lastReadTime);
+
+    /**
+     * 服务端向该连接下发了新的心跳间隔，之前的间隔统计不再适用
+     */
+    void expect(int slot, long now, long intervalNanos);
+
+    /**
+     * 时间轮扫描到该 slot 时调用，lastReadTime 为最后一次收到任何数据的时间，返回 false 时关闭连接
+     */
+    boolean isAlive(int slot, long now, long lastReadTime);
+}
@@ -0,0 +1,166 @@
+package server.liveness;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个 EventLoop 上的连接存活检测时间轮
+ * 1. 每个连接占用一个 slot，最后读/写时间保存在 long 数组中，读写时只做一次数组赋值
+ * 2. slot 按 slot % ticksPerWheel 散列到时间轮的格子上，每个 tick 扫描一个格子，转一圈为一个检查周期
+ * 3. 是否断线由 {@link LivenessPolicy} 判定，同一格子内断线的连接批量关闭
+ * 所有方法都只能在所属的 EventLoop 线程中调用，因此不需要任何同步
+ */
+public final class LivenessWheel {
+    private static final Logger logger = LoggerFactory.getLogger(LivenessWheel.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final EventLoop eventLoop;
+    private final long readerIdleNanos;
+    private final long writerIdleNanos;
+    private final LivenessPolicy policy;
+    private final int ticksPerWheel;
+    private final long tickNanos;
+
+    private Channel[] channels = new Channel[INITIAL_CAPACITY];
+    private long[] lastReadTimes = new long[INITIAL_CAPACITY];
+    private long[] lastWriteTimes = new long[INITIAL_CAPACITY];
+
+    // 空闲 slot 栈
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    // 已分配过的最大 slot + 1
+    private int highWater;
+    private int size;
+
+    private int tick;
+    private boolean started;
+    private final List<Channel> expired = new ArrayList<>();
+
+    LivenessWheel(EventLoop eventLoop, long readerIdleNanos, long writerIdleNanos, long checkPeriodNanos,
+                  int ticksPerWheel, LivenessPolicy policy) {
+        this.eventLoop = eventLoop;
+        this.readerIdleNanos = readerIdleNanos;
+        this.writerIdleNanos = writerIdleNanos;
+        this.policy = policy;
+        this.ticksPerWheel = ticksPerWheel;
+        this.tickNanos = Math.max(1, checkPeriodNanos / ticksPerWheel);
+        policy.grow(INITIAL_CAPACITY);
+    }
+
+    public EventLoop eventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * 注册连接，返回分配到的 slot
+     */
+    public int register(Channel channel) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (highWater == channels.length) {
+                grow();
+            }
+            slot = highWater++;
+        }
+        long now = System.nanoTime();
+        channels[slot] = channel;
+        lastReadTimes[slot] = now;
+        lastWriteTimes[slot] = now;
+        policy.register(slot, now);
+        size++;
+        if (!started) {
+            started = true;
+            eventLoop.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+        return slot;
+    }
+
+    public void unregister(int slot) {
+        if (channels[slot] == null) {
+            return;
+        }
+        channels[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length << 1);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    public void touchRead(int slot) {
+        lastReadTimes[slot] = System.nanoTime();
+    }
+
+    public void heartbeat(int slot) {
+        long now = System.nanoTime();
+        long lastReadTime = lastReadTimes[slot];
+        lastReadTimes[slot] = now;
+        policy.heartbeat(slot, now, lastReadTime);
+    }
+
+    public void expectInterval(int slot, long intervalNanos) {
+        policy.expect(slot, System.nanoTime(), intervalNanos);
+    }
+
+    public void touchWrite(int slot) {
+        lastWriteTimes[slot] = System.nanoTime();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 扫描当前格子上的所有 slot，批量关闭策略判定为断线的连接
+     */
+    private void tick() {
+        int bucket = tick;
+        tick = (tick + 1) % ticksPerWheel;
+        if (size == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (int slot = bucket; slot < highWater; slot += ticksPerWheel) {
+            Channel channel = channels[slot];
+            if (channel == null) {
+                continue;
+            }
+            // 每个 slot 每转一圈（一个检查周期）检查一次
+            if (!policy.isAlive(slot, now, lastReadTimes[slot])) {
+                expired.add(channel);
+            } else if (now - lastReadTimes[slot] >= readerIdleNanos && logger.isDebugEnabled()) {
+                // 读超时
+                logger.debug("{} 超时类型：read idle", channel.remoteAddress());
+            }
+            if (now - lastWriteTimes[slot] >= writerIdleNanos && logger.isDebugEnabled()) {
+                // 写超时
+                logger.debug("{} 超时类型：write idle", channel.remoteAddress());
+            }
+        }
+        if (!expired.isEmpty()) {
+            logger.info("===服务端===(判定断线，批量关闭 {} 个 channel)", expired.size());
+            for (Channel channel : expired) {
+                channel.close();
+            }
+            expired.clear();
+        }
+    }
+
+    private void grow() {
+        int newCapacity = channels.length << 1;
+        channels = Arrays.copyOf(channels, newCapacity);
+        lastReadTimes = Arrays.copyOf(lastReadTimes, newCapacity);
+        lastWriteTimes = Arrays.copyOf(lastWriteTimes, newCapacity);
+        policy.grow(newCapacity);
+    }
+}
@@ -0,0 +1,34 @@
+package server.liveness;
+
+/**
+ * 固定次数策略：连续 maxUnRecPingTimes 个读超时周期之后（即超过 maxUnRecPingTimes + 1 个周期）仍没有收到数据则关闭
+ * 未收到心跳的次数由最后一次读的时间算出，收到任何数据自然清零，不需要额外状态
+ */
+public final class MissedHeartbeatPolicy implements LivenessPolicy {
+    private final long deadNanos;
+
+    public MissedHeartbeatPolicy(long readerIdleNanos, int maxUnRecPingTimes) {
+        this.deadNanos = readerIdleNanos * (maxUnRecPingTimes + 1);
+    }
+
+    @Override
+    public void grow(int capacity) {
+    }
+
+    @Override
+    public void register(int slot, long now) {
+    }
+
+    @Override
+    public void heartbeat(int slot, long now, long lastReadTime) {
+    }
+
+    @Override
+    public void expect(int slot, long now, long intervalNanos) {
+    }
+
+    @Override
+    public boolean isAlive(int slot, long now, long lastReadTime) {
+        return now - lastReadTime < deadNanos;
+    }
+}
@@ -0,0 +1,123 @@
+package server.liveness;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phi Accrual 故障检测（Hayashibara et al.）
+ * 1. 每个连接在环形缓冲区中保存最近 windowSize 个间隔样本（微秒），同时维护和与平方和，O(1) 得到均值和方差
+ * 2. 距最后一次收到数据的时间 t 按正态分布计算 phi = -log10(P(间隔 > t))，超过 threshold 即判定为断线
+ *    样本只在收到心跳时记录，取心跳与之前最后一次收到任何数据的间隔：客户端只在空闲时发心跳，
+ *    持续上传期间没有心跳，从上一个心跳算起会得到一个很大的样本，从最后到达时间算起才与 phi 的计算口径一致
+ *    单个样本截断到预期间隔的 MAX_SAMPLE_INTERVALS 倍，丢失心跳等异常间隔不会长期拉高均值和方差
+ * 3. 样本不足时用预期间隔作为均值、其 1/4 作为标准差；预期间隔初始为 firstHeartbeatEstimate，
+ *    服务端下发新的心跳间隔后改为该间隔并清空样本，避免间隔调大后被误判
+ * 网络抖动大的连接方差大，phi 上升慢，不会被误杀；间隔稳定的连接断开后 phi 很快超过阈值
+ * 所有状态都是基本类型数组，按 slot 索引，不为连接分配对象
+ */
+public final class PhiAccrualPolicy implements LivenessPolicy {
+    private static final int MAX_SAMPLE_INTERVALS = 3;
+
+    private final double threshold;
+    private final int windowSize;
+    private final double minStdDevMicros;
+    private final double acceptablePauseMicros;
+    private final long firstEstimateMicros;
+
+    // slot * windowSize 开始的 windowSize 个元素为该连接的环形缓冲区，容量由时间轮通过 grow 分配
+    private long[] samples = new long[0];
+    private int[] sampleCounts = new int[0];
+    private int[] samplePositions = new int[0];
+    private long[] sums = new long[0];
+    // 1 小时的间隔（微秒）平方已超出 long 的范围
+    private double[] squareSums = new double[0];
+    private long[] estimates = new long[0];
+
+    public PhiAccrualPolicy(double threshold, int windowSize, long minStdDevMillis, long acceptablePauseMillis,
+                            long firstHeartbeatEstimateMillis) {
+        this.threshold = threshold;
+        this.windowSize = windowSize;
+        this.minStdDevMicros = TimeUnit.MILLISECONDS.toMicros(minStdDevMillis);
+        this.acceptablePauseMicros = TimeUnit.MILLISECONDS.toMicros(acceptablePauseMillis);
+        this.firstEstimateMicros = TimeUnit.MILLISECONDS.toMicros(firstHeartbeatEstimateMillis);
+    }
+
+    @Override
+    public void grow(int capacity) {
+        samples = Arrays.copyOf(samples, capacity * windowSize);
+        sampleCounts = Arrays.copyOf(sampleCounts, capacity);
+        samplePositions = Arrays.copyOf(samplePositions, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+        squareSums = Arrays.copyOf(squareSums, capacity);
+        estimates = Arrays.copyOf(estimates, capacity);
+    }
+
+    @Override
+    public void register(int slot, long now) {
+        reset(slot, firstEstimateMicros);
+    }
+
+    @Override
+    public void expect(int slot, long now, long intervalNanos) {
+        reset(slot, TimeUnit.NANOSECONDS.toMicros(intervalNanos));
+    }
+
+    private void reset(int slot, long estimateMicros) {
+        sampleCounts[slot] = 0;
+        samplePositions[slot] = 0;
+        sums[slot] = 0;
+        squareSums[slot] = 0;
+        estimates[slot] = estimateMicros;
+    }
+
+    @Override
+    public void heartbeat(int slot, long now, long lastReadTime) {
+        long interval = Math.min(TimeUnit.NANOSECONDS.toMicros(now - lastReadTime),
+                estimates[slot] * MAX_SAMPLE_INTERVALS);
+        int index = slot * windowSize + samplePositions[slot];
+        if (sampleCounts[slot] == windowSize) {
+            // 缓冲区已满，移出最旧的样本
+            long evicted = samples[index];
+            sums[slot] -= evicted;
+            squareSums[slot] -= (double) evicted * evicted;
+        } else {
+            sampleCounts[slot]++;
+        }
+        samples[index] = interval;
+        sums[slot] += interval;
+        squareSums[slot] += (double) interval * interval;
+        samplePositions[slot] = (samplePositions[slot] + 1) % windowSize;
+    }
+
+    @Override
+    public boolean isAlive(int slot, long now, long lastReadTime) {
+        return phi(slot, TimeUnit.NANOSECONDS.toMicros(now - lastReadTime)) < threshold;
+    }
+
+    /**
+     * 距最后一次到达 elapsedMicros 时的 phi 值
+     */
+    double phi(int slot, long elapsedMicros) {
+        int count = sampleCounts[slot];
+        double mean;
+        double stdDev;
+        if (count < 2) {
+            mean = estimates[slot];
+            stdDev = mean / 4;
+        } else {
+            mean = (double) sums[slot] / count;
+            double variance = squareSums[slot] / count - mean * mean;
+            stdDev = Math.sqrt(Math.max(0, variance));
+        }
+        mean += acceptablePauseMicros;
+        stdDev = Math.max(stdDev, minStdDevMicros);
+
+        // 正态分布累积函数的 logistic 近似
+        double y = (elapsedMicros - mean) / stdDev;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (elapsedMicros > mean) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+}
@@ -0,0 +1,45 @@
+package server.metrics;
+
+import util.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 心跳往返时间统计，整个节点一个直方图，另外每个客户端分组一个
+ * 往返时间由客户端测得后在下一次 PING 中上报
+ */
+public class HeartbeatMetrics {
+    private final long maxMicros;
+    private final LatencyHistogram node;
+    private final Map<String, LatencyHistogram> groups = new ConcurrentHashMap<>();
+
+    public HeartbeatMetrics(long maxMicros) {
+        this.maxMicros = maxMicros;
+        this.node = new LatencyHistogram(maxMicros);
+    }
+
+    /**
+     * group 为空时只计入节点直方图
+     */
+    public void record(String group, long rttMicros) {
+        node.record(rttMicros);
+        if (group != null) {
+            LatencyHistogram histogram = groups.get(group);
+            if (histogram == null) {
+                histogram = groups.computeIfAbsent(group, g -> new LatencyHistogram(maxMicros));
+            }
+            histogram.record(rttMicros);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> groupSnapshots = new LinkedHashMap<>();
+        groups.forEach((group, histogram) -> groupSnapshots.put(group, histogram.snapshot().toMap()));
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("node", node.snapshot().toMap());
+        snapshot.put("groups", groupSnapshots);
+        return snapshot;
+    }
+}
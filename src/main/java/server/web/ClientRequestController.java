@@ -0,0 +1,82 @@
+package server.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import server.ChannelRepository;
+
+import javax.annotation.PostConstruct;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 向客户端下发指令并等待确认，返回客户端 PUSH_DATA_BACK 中的 data
+ * 请求异步完成，等待期间不占用 servlet 线程
+ * 默认不注册，request.http.enabled=true 时才启用；调用方必须在 X-Auth-Token 头中带上 request.http.token，
+ * 启用但未配置 token 时启动失败
+ */
+@RestController
+@ConditionalOnProperty(name = "request.http.enabled", havingValue = "true")
+public class ClientRequestController {
+    static final String TOKEN_HEADER = "X-Auth-Token";
+
+    @Autowired
+    @Qualifier("channelRepository")
+    private ChannelRepository channelRepository;
+
+    @Value("${request.timeout.millis:5000}")
+    private long defaultTimeoutMillis;
+
+    @Value("${request.http.token:}")
+    private String token;
+
+    private byte[] tokenBytes;
+
+    @PostConstruct
+    public void init() {
+        if (token.isEmpty()) {
+            throw new IllegalStateException("request.http.enabled requires request.http.token");
+        }
+        tokenBytes = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 子设备的 clientId 中含有 "/"，不能作为路径变量
+    @PostMapping("/clients/requests")
+    public CompletableFuture<ResponseEntity<String>> request(@RequestHeader(value = TOKEN_HEADER, required = false) String auth,
+                                                             @RequestParam("clientId") String clientId,
+                                                             @RequestBody String payload,
+                                                             @RequestParam(value = "timeoutMillis", required = false) Long timeoutMillis) {
+        if (auth == null || !MessageDigest.isEqual(tokenBytes, auth.getBytes(StandardCharsets.UTF_8))) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized"));
+        }
+        long timeout = timeoutMillis == null ? defaultTimeoutMillis : timeoutMillis;
+        return channelRepository.request(clientId, payload, timeout)
+                .handle((response, cause) -> {
+                    if (cause == null) {
+                        return ResponseEntity.ok(response.getData());
+                    }
+                    Throwable t = cause instanceof CompletionException ? cause.getCause() : cause;
+                    if (t instanceof ClosedChannelException) {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(clientId + " is offline");
+                    } else if (t instanceof TimeoutException) {
+                        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(t.getMessage());
+                    } else if (t instanceof RejectedExecutionException) {
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(t.getMessage());
+                    }
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(String.valueOf(t));
+                });
+    }
+}
@@ -0,0 +1,24 @@
+package server.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import server.metrics.HeartbeatMetrics;
+
+import java.util.Map;
+
+/**
+ * 心跳往返时间的百分位快照，单位微秒
+ */
+@RestController
+public class HeartbeatMetricsController {
+    @Autowired
+    @Qualifier("heartbeatMetrics")
+    private HeartbeatMetrics heartbeatMetrics;
+
+    @GetMapping("/metrics/heartbeat")
+    public Map<String, Object> heartbeat() {
+        return heartbeatMetrics.snapshot();
+    }
+}
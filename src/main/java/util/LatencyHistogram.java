@@ -0,0 +1,138 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的对数-线性分桶直方图（HDR Histogram 的简化版），用于统计延迟（微秒）
+ * 1. 小于 128 的值每个值一个桶；之后每翻一倍分 64 个桶，相对误差不超过 1/64
+ * 2. 记录时只做一次 incrementAndGet，不加锁、不分配对象，可被多个 EventLoop 并发写入
+ * 3. 超过 maxValue 的值记入最后一个桶
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    private final long maxValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(long maxValue) {
+        this.maxValue = Math.max(maxValue, SUB_BUCKET_COUNT);
+        this.counts = new AtomicLongArray(bucketIndex(this.maxValue) + 1);
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > maxValue) {
+            value = maxValue;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 其它线程更新了最大值，重试
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, max.get());
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * 桶中最大的值
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index - shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * 某一时刻的快照，各桶分别读取，与并发写入之间不保证严格一致
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long max;
+        private final long count;
+        private final double mean;
+
+        private Snapshot(long[] counts, long max) {
+            this.counts = counts;
+            this.max = max;
+            long total = 0;
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                sum += (double) counts[i] * bucketUpperBound(i);
+            }
+            this.count = total;
+            this.mean = total == 0 ? 0 : sum / total;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return mean;
+        }
+
+        /**
+         * percentile 取值 0 ~ 100，返回所在桶的上界
+         */
+        public long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("mean", Math.round(mean));
+            map.put("p50", valueAtPercentile(50));
+            map.put("p90", valueAtPercentile(90));
+            map.put("p99", valueAtPercentile(99));
+            map.put("p999", valueAtPercentile(99.9));
+            map.put("max", max);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return toMap().toString();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package util;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 单个连接上未完成的请求表，按 correlationId 索引
+ * 1. 只在连接所属的 EventLoop 中访问，不加锁；响应和超时都在该 EventLoop 中完成 future
+ * 2. 所有连接共享一个 HashedWheelTimer 计时，超时任务只是把过期处理提交回 EventLoop，不为每个请求创建定时任务
+ * 3. correlationId 从 1 开始递增，跳过 0（0 表示没有关联 id）和仍在使用中的 id
+ */
+public final class PendingRequests<T> {
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("request-timeout", true), 10, TimeUnit.MILLISECONDS, 512);
+
+    private final EventLoop eventLoop;
+    private final IntObjectHashMap<Pending<T>> pending = new IntObjectHashMap<>();
+    private int nextId;
+
+    public PendingRequests(EventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * 登记一个请求，返回分配的 correlationId
+     */
+    public int register(CompletableFuture<T> future, long timeoutMillis) {
+        int id;
+        do {
+            id = ++nextId;
+            if (id == 0) {
+                id = ++nextId;
+            }
+        } while (pending.containsKey(id));
+        Pending<T> p = new Pending<>(future);
+        pending.put(id, p);
+        int correlationId = id;
+        p.timeout = TIMER.newTimeout(t -> eventLoop.execute(() -> expire(correlationId, p, timeoutMillis)),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        return correlationId;
+    }
+
+    /**
+     * 用响应完成请求，没有对应的请求（已超时或未知 id）时返回 false
+     */
+    public boolean complete(int correlationId, T response) {
+        Pending<T> p = pending.remove(correlationId);
+        if (p == null) {
+            return false;
+        }
+        p.timeout.cancel();
+        p.future.complete(response);
+        return true;
+    }
+
+    public void fail(int correlationId, Throwable cause) {
+        Pending<T> p = pending.remove(correlationId);
+        if (p != null) {
+            p.timeout.cancel();
+            p.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * future 已在外部完成（调用方取消等）时调用，释放 correlationId 并取消超时；id 已分配给其它请求时不做处理
+     */
+    public void remove(int correlationId, CompletableFuture<T> future) {
+        Pending<T> p = pending.get(correlationId);
+        if (p != null && p.future == future) {
+            pending.remove(correlationId);
+            p.timeout.cancel();
+        }
+    }
+
+    /**
+     * 连接关闭时让所有未完成的请求失败
+     */
+    public void failAll(Throwable cause) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 先清空再完成，future 的回调中可能发起新的请求
+        List<Pending<T>> failed = new ArrayList<>(pending.size());
+        for (IntObjectMap.Entry<Pending<T>> entry : pending.entries()) {
+            failed.add(entry.value());
+        }
+        pending.clear();
+        for (Pending<T> p : failed) {
+            p.timeout.cancel();
+            p.future.completeExceptionally(cause);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private void expire(int correlationId, Pending<T> p, long timeoutMillis) {
+        // id 可能已被响应完成后重新分配给其它请求
+        if (pending.get(correlationId) == p) {
+            pending.remove(correlationId);
+            p.future.completeExceptionally(new TimeoutException("No response in " + timeoutMillis + " ms"));
+        }
+    }
+
+    private static final class Pending<T> {
+        private final CompletableFuture<T> future;
+        private Timeout timeout;
+
+        private Pending(CompletableFuture<T> future) {
+            this.future = future;
+        }
+    }
+}
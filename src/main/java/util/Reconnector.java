@@ -0,0 +1,170 @@
+package util;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 客户端断线重连
+ * 1. 退避使用 decorrelated jitter：下一次等待时间在 [baseMillis, 上一次 * 3) 中随机取值，不超过 capMillis，
+ *    server 重启后各客户端的重连时间自然错开，不会同一时刻涌向 server
+ * 2. server 通过 RECONNECT 给出的 retryAfterMillis / 地址优先于退避时间，只对下一次连接生效
+ * 3. 同一时刻最多只有一个连接尝试（含等待中的定时任务），重复调用 {@link #reconnect()} 直接忽略
+ * 4. 所有等待都通过 EventLoop 定时任务完成，不阻塞 I/O 线程
+ * 5. 连接保持超过 capMillis 后断开才把退避时间恢复为 baseMillis，避免连上即被断开时快速重试
+ */
+public class Reconnector {
+    private static final Logger logger = LoggerFactory.getLogger(Reconnector.class);
+
+    private final Bootstrap bootstrap;
+    private final EventLoop scheduler;
+    private final SocketAddress remoteAddress;
+    private final long baseMillis;
+    private final long capMillis;
+
+    // 为 true 时表示有连接尝试在进行或等待中，只有持有者可以修改下面的退避状态
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile boolean stopped;
+    private volatile Channel channel;
+    private volatile long connectedAt;
+    private volatile long sleepMillis;
+    private volatile int attempts;
+
+    // server 下发的提示，只对下一次连接生效
+    private volatile long retryAfterMillis = -1;
+    private volatile SocketAddress redirectAddress;
+
+    public Reconnector(Bootstrap bootstrap, EventLoop scheduler, SocketAddress remoteAddress,
+                       long baseMillis, long capMillis) {
+        this.bootstrap = bootstrap;
+        this.scheduler = scheduler;
+        this.remoteAddress = remoteAddress;
+        this.baseMillis = baseMillis;
+        this.capMillis = Math.max(baseMillis, capMillis);
+        this.sleepMillis = baseMillis;
+    }
+
+    /**
+     * 立即发起第一次连接
+     */
+    public void start() {
+        if (pending.compareAndSet(false, true)) {
+            scheduler.execute(this::doConnect);
+        }
+    }
+
+    /**
+     * 按退避时间（或 server 的提示）安排一次重连，已有连接尝试时直接返回
+     */
+    public void reconnect() {
+        if (stopped || isActive() || !pending.compareAndSet(false, true)) {
+            return;
+        }
+        schedule();
+    }
+
+    /**
+     * 记录 server 的重连提示，address 为 host:port，为空表示仍连接原地址
+     */
+    public void retryAfter(long millis, String address) {
+        retryAfterMillis = Math.max(0, millis);
+        redirectAddress = parseAddress(address);
+    }
+
+    public void stop() {
+        stopped = true;
+        Channel ch = channel;
+        if (ch != null) {
+            ch.close();
+        }
+    }
+
+    public Channel channel() {
+        return channel;
+    }
+
+    public boolean isActive() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    private void schedule() {
+        long delay = nextDelayMillis();
+        logger.info("Reconnect in {} ms (attempt {})", delay, attempts + 1);
+        scheduler.schedule(this::doConnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private long nextDelayMillis() {
+        long hint = retryAfterMillis;
+        if (hint >= 0) {
+            retryAfterMillis = -1;
+            return hint;
+        }
+        long upper = Math.min(capMillis, sleepMillis * 3);
+        long sleep = upper > baseMillis ? ThreadLocalRandom.current().nextLong(baseMillis, upper) : baseMillis;
+        sleepMillis = sleep;
+        return sleep;
+    }
+
+    private void doConnect() {
+        if (stopped) {
+            pending.set(false);
+            return;
+        }
+        attempts++;
+        SocketAddress address = redirectAddress != null ? redirectAddress : remoteAddress;
+        redirectAddress = null;
+        bootstrap.connect(address).addListener((ChannelFuture future) -> {
+            if (future.isSuccess()) {
+                onConnected(future.channel());
+            } else {
+                logger.warn("Failed to connect to {}: {}", address, future.cause().toString());
+                // 仍持有 pending，直接安排下一次
+                schedule();
+            }
+        });
+    }
+
+    private void onConnected(Channel ch) {
+        channel = ch;
+        connectedAt = System.nanoTime();
+        logger.info("Connect to server {} successfully after {} attempt(s)", ch.remoteAddress(), attempts);
+        attempts = 0;
+        pending.set(false);
+        ch.closeFuture().addListener(future -> {
+            if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectedAt) >= capMillis) {
+                sleepMillis = baseMillis;
+            }
+            reconnect();
+        });
+        if (stopped) {
+            ch.close();
+        }
+    }
+
+    private static SocketAddress parseAddress(String address) {
+        if (address == null || address.isEmpty()) {
+            return null;
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        try {
+            return InetSocketAddress.createUnresolved(address.substring(0, colon),
+                    Integer.parseInt(address.substring(colon + 1)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignore invalid reconnect address {}", address);
+            return null;
+        }
+    }
+}
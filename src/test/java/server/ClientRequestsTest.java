@@ -0,0 +1,81 @@
+package server;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 调用方取消请求后窗口立即释放，排队中被取消的请求不再发出
+ */
+public class ClientRequestsTest {
+    private EmbeddedChannel channel;
+    private ClientRequests requests;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel();
+        requests = ClientRequests.getOrCreate(channel, 1, 8);
+    }
+
+    @Test
+    public void cancelReleasesInFlightSlot() {
+        CompletableFuture<MessageBase> first = send("first");
+        CompletableFuture<MessageBase> second = send("second");
+        MessageBase written = channel.readOutbound();
+        assertEquals("first", written.getData());
+        assertNull(channel.readOutbound());
+
+        first.cancel(false);
+        channel.runPendingTasks();
+        MessageBase next = channel.readOutbound();
+        assertEquals("second", next.getData());
+        // 迟到的响应找不到请求
+        assertFalse(ClientRequests.complete(channel, response(written.getCorrelationId())));
+        assertTrue(ClientRequests.complete(channel, response(next.getCorrelationId())));
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+    }
+
+    @Test
+    public void cancelledWhileQueuedIsSkipped() {
+        CompletableFuture<MessageBase> first = send("first");
+        CompletableFuture<MessageBase> second = send("second");
+        send("third");
+        MessageBase written = channel.readOutbound();
+
+        second.cancel(false);
+        channel.runPendingTasks();
+        assertNull(channel.readOutbound());
+        assertTrue(ClientRequests.complete(channel, response(written.getCorrelationId())));
+        assertTrue(first.isDone());
+        channel.runPendingTasks();
+        assertEquals("third", ((MessageBase) channel.readOutbound()).getData());
+        assertNull(channel.readOutbound());
+    }
+
+    private CompletableFuture<MessageBase> send(String data) {
+        CompletableFuture<MessageBase> future = new CompletableFuture<>();
+        requests.send(MessageBase.newBuilder()
+                .setClientId("client")
+                .setCmd(CommandType.PUSH_DATA)
+                .setData(data)
+                .build(), 60_000, future);
+        return future;
+    }
+
+    private static MessageBase response(int correlationId) {
+        return MessageBase.newBuilder()
+                .setClientId("client")
+                .setCmd(CommandType.PUSH_DATA_BACK)
+                .setCorrelationId(correlationId)
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package server;
+
+import client.PushReceiver;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 可靠推送中途丢失一条后由 NACK 恢复
+ * 服务端和客户端各用一个 EmbeddedChannel，消息在两者之间手工转发，转发时可以丢弃指定的消息
+ */
+public class ReliablePushTest {
+    private static final String CLIENT_ID = "client";
+
+    private ReliablePush reliablePush;
+    private EmbeddedChannel server;
+    private EmbeddedChannel client;
+    private final List<Long> delivered = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        reliablePush = new ReliablePush(256, 300);
+        server = new EmbeddedChannel();
+        assertEquals(0, reliablePush.open(CLIENT_ID, 0));
+        reliablePush.attach(CLIENT_ID, server);
+    }
+
+    @Test
+    public void gapIsRetransmittedFromAck() {
+        // 确认都靠批量，不会在测试期间自动发出
+        connectClient(new PushReceiver(32, 60_000, 60_000));
+        push(8);
+        toClient(6L);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), delivered);
+
+        // 7 和 8 只触发一个 NACK；服务端此时还没有收到任何 ack
+        MessageBase nack = client.readOutbound();
+        assertNull(client.readOutbound());
+        assertEquals(CommandType.PUSH_DATA_BACK, nack.getCmd());
+        assertEquals(5, nack.getAck());
+        assertEquals(6, nack.getSeq());
+
+        toServer(nack);
+        assertEquals(3, reliablePush.unacked(CLIENT_ID));
+        toClient();
+        push(2);
+        toClient();
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), delivered);
+    }
+
+    @Test
+    public void lostNackIsResent() throws InterruptedException {
+        connectClient(new PushReceiver(32, 60_000, 20));
+        push(8);
+        toClient(6L);
+        MessageBase lost = client.readOutbound();
+        assertTrue(lost.hasSeq());
+
+        // 空洞未补上，NACK 定时重发
+        Thread.sleep(50);
+        client.runPendingTasks();
+        MessageBase nack = client.readOutbound();
+        assertEquals(5, nack.getAck());
+        assertEquals(6, nack.getSeq());
+
+        toServer(nack);
+        toClient();
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L), delivered);
+
+        // 补上之后不再重发
+        Thread.sleep(50);
+        client.runPendingTasks();
+        assertNull(client.readOutbound());
+    }
+
+    private void connectClient(PushReceiver receiver) {
+        receiver.resume(0);
+        client = new EmbeddedChannel(new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                MessageBase push = (MessageBase) msg;
+                if (receiver.receive(ctx, push)) {
+                    delivered.add(push.getSeq());
+                }
+            }
+        });
+    }
+
+    private void push(int count) {
+        for (int i = 0; i < count; i++) {
+            MessageBase msg = MessageBase.newBuilder()
+                    .setClientId(CLIENT_ID)
+                    .setCmd(CommandType.PUSH_DATA)
+                    .build();
+            assertTrue(reliablePush.push(CLIENT_ID, msg));
+        }
+    }
+
+    /**
+     * 把服务端写出的推送交给客户端，丢弃 drop 中的序号
+     */
+    private void toClient(Long... drop) {
+        List<Long> dropped = Arrays.asList(drop);
+        MessageBase msg;
+        while ((msg = server.readOutbound()) != null) {
+            if (!dropped.contains(msg.getSeq())) {
+                client.writeInbound(msg);
+            }
+        }
+    }
+
+    /**
+     * 与 SessionServerHandler 对 PUSH_DATA_BACK 的处理一致
+     */
+    private void toServer(MessageBase back) {
+        if (back.hasSeq()) {
+            reliablePush.nack(CLIENT_ID, back.getAck());
+        } else {
+            reliablePush.ack(CLIENT_ID, back.getAck());
+        }
+    }
+}
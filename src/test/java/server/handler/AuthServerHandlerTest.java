@@ -0,0 +1,110 @@
+package server.handler;
+
+import codec.DeflateFrameCompression;
+import codec.Features;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+import protobuf.Command.CommandType;
+import protobuf.Message.MessageBase;
+import server.ChannelRepository;
+import server.ReliablePush;
+import server.liveness.HeartbeatIntervalPolicy;
+import server.liveness.LivenessEngine;
+import server.liveness.MissedHeartbeatPolicy;
+import server.metrics.HeartbeatMetrics;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 设备直连认证的 clientId 已作为逻辑 clientId 挂载在网关上
+ * 每个 EmbeddedChannel 有自己的 EventLoop，网关和设备落在 ChannelRepository 的不同分片
+ */
+public class AuthServerHandlerTest {
+    private ChannelRepository channelRepository;
+    private AuthServerHandler authServerHandler;
+
+    @Before
+    public void setUp() {
+        channelRepository = new ChannelRepository();
+        ReliablePush reliablePush = new ReliablePush(256, 300);
+        EmbeddedChannel policyLoop = new EmbeddedChannel();
+        HeartbeatIntervalPolicy heartbeatIntervalPolicy = new HeartbeatIntervalPolicy(
+                policyLoop.eventLoop(), channelRepository, 10, 5, 20, 10000, 50, 60, 1000);
+        LivenessEngine livenessEngine = new LivenessEngine(20, 20, 5, 64,
+                () -> new MissedHeartbeatPolicy(20_000_000_000L, 3));
+
+        SessionServerHandler sessionServerHandler = new SessionServerHandler();
+        inject(sessionServerHandler, "heartbeatMetrics", new HeartbeatMetrics(60_000_000L));
+        inject(sessionServerHandler, "heartbeatIntervalPolicy", heartbeatIntervalPolicy);
+        inject(sessionServerHandler, "livenessEngine", livenessEngine);
+        inject(sessionServerHandler, "channelRepository", channelRepository);
+        inject(sessionServerHandler, "reliablePush", reliablePush);
+        inject(sessionServerHandler, "maxLogicalIds", 1000);
+
+        authServerHandler = new AuthServerHandler();
+        inject(authServerHandler, "multiplexEnabled", true);
+        inject(authServerHandler, "frameCompression", new DeflateFrameCompression(new byte[0], 256, 6));
+        inject(authServerHandler, "channelRepository", channelRepository);
+        inject(authServerHandler, "heartbeatIntervalPolicy", heartbeatIntervalPolicy);
+        inject(authServerHandler, "livenessEngine", livenessEngine);
+        inject(authServerHandler, "sessionServerHandler", sessionServerHandler);
+        inject(authServerHandler, "reliablePush", reliablePush);
+    }
+
+    @Test
+    public void authTakesOverLogicalId() {
+        EmbeddedChannel gateway = new EmbeddedChannel(authServerHandler);
+        gateway.writeInbound(auth("gateway", Features.MULTIPLEX));
+        assertEquals(CommandType.AUTH_BACK, ((MessageBase) gateway.readOutbound()).getCmd());
+        gateway.writeInbound(MessageBase.newBuilder().setClientId("sub").setCmd(CommandType.ATTACH).build());
+        MessageBase attachBack = gateway.readOutbound();
+        assertEquals(CommandType.ATTACH_BACK, attachBack.getCmd());
+        assertEquals("sub", attachBack.getBatch(0).getClientId());
+        assertSame(gateway, channelRepository.get("sub"));
+
+        EmbeddedChannel device = new EmbeddedChannel(authServerHandler);
+        device.writeInbound(auth("sub", 0));
+        assertEquals(CommandType.AUTH_BACK, ((MessageBase) device.readOutbound()).getCmd());
+
+        MessageBase detach = gateway.readOutbound();
+        assertEquals(CommandType.DETACH, detach.getCmd());
+        assertEquals("sub", detach.getClientId());
+        assertEquals("Taken over", detach.getData());
+        assertNull(gateway.readOutbound());
+        assertFalse(channelRepository.isAttached(gateway, "sub"));
+        assertEquals(0, channelRepository.logicalSize());
+        assertSame(device, channelRepository.get("sub"));
+
+        // 网关不再转发该 clientId 的上行
+        gateway.writeInbound(MessageBase.newBuilder().setClientId("sub").setCmd(CommandType.UPLOAD_DATA).build());
+        assertNull(gateway.readInbound());
+        assertTrue(channelRepository.push("sub", MessageBase.newBuilder().setClientId("sub").setCmd(CommandType.PUSH_DATA).build()));
+        assertEquals(CommandType.PUSH_DATA, ((MessageBase) device.readOutbound()).getCmd());
+        assertNull(gateway.readOutbound());
+    }
+
+    private static MessageBase auth(String clientId, int features) {
+        return MessageBase.newBuilder()
+                .setClientId(clientId)
+                .setCmd(CommandType.AUTH)
+                .setFeatures(features)
+                .build();
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + name + " into " + target.getClass().getName(), e);
+        }
+    }
+}
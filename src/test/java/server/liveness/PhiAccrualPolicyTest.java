@@ -0,0 +1,77 @@
+package server.liveness;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 客户端只在空闲时发心跳：每 10 秒一个心跳，中间有 1 小时持续上传、没有心跳
+ */
+public class PhiAccrualPolicyTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long INTERVAL = 10 * SECOND;
+
+    private PhiAccrualPolicy policy;
+    private long now;
+    private long lastReadTime;
+
+    @Before
+    public void setUp() {
+        policy = new PhiAccrualPolicy(8, 16, 500, 0, 10_000);
+        policy.grow(1);
+        now = 1_000 * SECOND;
+        lastReadTime = now;
+        policy.register(0, now);
+        policy.expect(0, now, INTERVAL);
+        for (int i = 0; i < 20; i++) {
+            ping(INTERVAL);
+        }
+    }
+
+    @Test
+    public void busyHourDoesNotDelayDetection() {
+        long steady = deadAfter();
+        // 1 小时内每秒上传一次，之后空闲 10 秒发心跳
+        for (int i = 0; i < 3600; i++) {
+            now += SECOND;
+            lastReadTime = now;
+        }
+        ping(INTERVAL);
+        assertTrue(deadAfter() <= steady);
+    }
+
+    @Test
+    public void hourWithoutReadsIsClamped() {
+        // 1 小时完全没有数据（时间轮检查被跳过），间隔的平方超出 long 的范围
+        ping(TimeUnit.HOURS.toNanos(1));
+        long dead = deadAfter();
+        assertTrue(dead > INTERVAL);
+        assertTrue(dead < 6 * INTERVAL);
+        for (int i = 0; i < 16; i++) {
+            ping(INTERVAL);
+        }
+        assertTrue(deadAfter() < 2 * INTERVAL);
+        assertFalse(Double.isNaN(policy.phi(0, TimeUnit.NANOSECONDS.toMicros(INTERVAL))));
+    }
+
+    private void ping(long after) {
+        now += after;
+        policy.heartbeat(0, now, lastReadTime);
+        lastReadTime = now;
+    }
+
+    /**
+     * 最后一次收到数据之后多久被判定为断线
+     */
+    private long deadAfter() {
+        for (long elapsed = 0; ; elapsed += SECOND / 10) {
+            if (!policy.isAlive(0, lastReadTime + elapsed, lastReadTime)) {
+                return elapsed;
+            }
+        }
+    }
+}